@@ -22,6 +22,7 @@ import net.mostlyoriginal.api.system.render.AnimRenderSystem;
 import net.mostlyoriginal.api.utils.builder.WorldBuilder;
 import net.mostlyoriginal.game.manager.*;
 import net.mostlyoriginal.game.system.LayerLoaderSystem;
+import net.mostlyoriginal.game.system.interaction.ArrivalTooltipSystem;
 import net.mostlyoriginal.game.system.interaction.ButtonSystem;
 import net.mostlyoriginal.game.system.interaction.DeletableSystem;
 import net.mostlyoriginal.game.system.interaction.DraggableSystem;
@@ -32,7 +33,10 @@ import net.mostlyoriginal.game.system.logic.analysis.PreferredRouteCalculationSy
 import net.mostlyoriginal.game.system.logic.analysis.RouteCalculationSystem;
 import net.mostlyoriginal.game.system.render.LabelRenderSystem;
 import net.mostlyoriginal.game.system.render.LayerRenderSystem;
+import net.mostlyoriginal.game.system.render.TrafficRenderSystem;
+import net.mostlyoriginal.game.system.render.layer.BattlefrontSystem;
 import net.mostlyoriginal.game.system.render.layer.DomainSystem;
+import net.mostlyoriginal.game.system.render.layer.IsochroneSystem;
 import net.mostlyoriginal.game.system.render.layer.RoutePlotSystem;
 import net.mostlyoriginal.game.system.render.layer.TechpointPressureSystem;
 import net.mostlyoriginal.game.system.render.layer.TechpointSymmetrySystem;
@@ -58,16 +62,20 @@ public class MainScreen implements Screen {
 						new TagManager(),
 						new UuidEntityManager(),
 						new NavigationGridManager(),
+						new CellClassificationManager(),
 						new LayerManager(),
 						new EntityFactoryManager(),
 						new FontManager(),
-						new MapMetadataManager())
+						new MapMetadataManager(),
+						new TravelTimeManager(),
+						new ArrivalFieldManager())
 				.with(
 						new CollisionSystem(),
 						new MouseCursorSystem(),
 						new MouseClickSystem(),
 						new DraggableSystem(),
 						new ButtonSystem(),
+						new ArrivalTooltipSystem(),
 						new ToolSystem(),
 						new DeletableSystem(),
 						new LayerLoaderSystem(),
@@ -82,7 +90,8 @@ public class MainScreen implements Screen {
 
 						/** Rendering */
 
-						renderBatchingSystem)
+						renderBatchingSystem,
+						new TrafficRenderSystem())
 				.withPassive(
 						new AnimRenderSystem(renderBatchingSystem),
 						new LayerRenderSystem(renderBatchingSystem),
@@ -91,6 +100,8 @@ public class MainScreen implements Screen {
 						new TeamChangingSystem(),
 						new TechpointPressureSystem(),
 						new DomainSystem(),
+						new BattlefrontSystem(),
+						new IsochroneSystem(),
 
 						new RefreshHandlerSystem(),
 						new PersistHandlerSystem(),
@@ -98,11 +109,12 @@ public class MainScreen implements Screen {
 						screenshotHandlerSystem,
 
 						// 1. Route Calculation.
-						// we run these in reverse, so dependencies will have to cycle one frame before
-						// being called which will avoid hitching due to multiple systems processing at once.
-						new PreferredRouteCalculationSystem(),
-						new RouteCalculationSystem(),
 						new NavigationGridCalculationSystem(),
+						new RouteCalculationSystem(),
+						new PreferredRouteCalculationSystem(),
+
+						// runs all job systems as a pipeline, within one frame budget.
+						new FrameBudgetSystem(),
 
 						new InputSystem(),
 						new MilestoneHandlerSystem()).initialize();
@@ -1,48 +1,111 @@
 package net.mostlyoriginal.game;
 
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.math.Vector2;
 import net.mostlyoriginal.api.utils.reference.SafeEntityReference;
-import net.mostlyoriginal.game.api.pathfinding.grid.GridNode;
 import net.mostlyoriginal.game.component.Team;
 
-import java.util.List;
-
 /**
+ * Route towards destination. Forward and reversed paths are views over the same {@link Route}.
+ *
  * @author Daan van Yperen
  */
 public class Path implements Comparable<Path> {
 
 	public SafeEntityReference destination;
-	public List<GridNode> cells;
+	public final Route route;
 	public Team team;
 	public boolean reversed = false;
 	public boolean preferred = false;
 
-	protected static final Vector2 vTmp = new Vector2();
+	// search cost of the route, in grid step costs.
+	public float cost;
+
 	public Color color = new Color();
 
-	public Path(SafeEntityReference destination, List<GridNode> cells, Team team, boolean reversed) {
+	// travel seconds per unit per pixel, by team ordinal.
+	private final float[] secondsPerUnit;
+
+	public Path(SafeEntityReference destination, Route route, Team team, boolean reversed) {
 		this.destination = destination;
-		this.cells = cells;
+		this.route = route;
 		this.team = team;
 		this.reversed = reversed;
+
+		final Team[] teams = Team.values();
+		secondsPerUnit = new float[teams.length];
+		for (int i = 0; i < teams.length; i++) {
+			secondsPerUnit[i] = route.getLength() / teams[i].getAvgSpeed();
+		}
+	}
+
+	/**
+	 * @return number of cells.
+	 */
+	public int size() {
+		return route.size();
+	}
+
+	private int toRoute(int i) {
+		return reversed ? route.size() - 1 - i : i;
+	}
+
+	/**
+	 * @return packed index of the i-th cell in walking order.
+	 */
+	public int getCell(int i) {
+		return route.getCell(toRoute(i));
+	}
+
+	public int getX(int i) {
+		return route.getX(toRoute(i));
+	}
+
+	public int getY(int i) {
+		return route.getY(toRoute(i));
+	}
+
+	/**
+	 * @return walking distance from the start of this path to the i-th cell.
+	 */
+	public float getDistance(int i) {
+		return reversed ? route.getLength() - route.getDistance(toRoute(i)) : route.getDistance(i);
+	}
+
+	/**
+	 * @return index of the first cell at least distance along the path, or the last cell when beyond the end.
+	 */
+	public int indexAtDistance(float distance) {
+		int low = 0;
+		int high = route.size() - 1;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (getDistance(mid) < distance) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	public float getLength() {
+		return route.getLength();
 	}
 
 	public int getPixelLength()
 	{
-		float length = 0;
-		for (int i = 1; i < cells.size(); i++) {
-			final GridNode c1 = cells.get(i-1);
-			final GridNode c2 = cells.get(i);
-			length += vTmp.set(c1.x, c1.y).sub(c2.x, c2.y).len();
-		}
+		return (int) route.getLength();
+	}
 
-		return (int)length;
+	/**
+	 * @return seconds team needs to walk this path.
+	 */
+	public float getTravelSeconds(Team team, float unitsPerPixel) {
+		return secondsPerUnit[team.ordinal()] * unitsPerPixel;
 	}
 
 	@Override
 	public int compareTo(Path o) {
-		return getPixelLength() - o.getPixelLength();
+		return Float.compare(getLength(), o.getLength());
 	}
 }
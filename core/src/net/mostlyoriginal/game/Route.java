@@ -0,0 +1,65 @@
+package net.mostlyoriginal.game;
+
+/**
+ * Geometry of a found route, stored once and shared by the {@link Path} in each direction.
+ * <p/>
+ * Cells are packed grid indices (y * width + x), with the cumulative walking
+ * distance at each cell, so length queries don't walk the cells.
+ *
+ * @author Daan van Yperen
+ */
+public class Route {
+
+	private static final float DIAGONAL = (float) Math.sqrt(2);
+
+	private final int width;
+	private final int[] cells;
+	private final float[] distances;
+
+	/**
+	 * @param cells packed cell indices from source to destination. Not copied.
+	 * @param width grid width, to unpack cell indices.
+	 */
+	public Route(int[] cells, int width) {
+		this.width = width;
+		this.cells = cells;
+		this.distances = new float[cells.length];
+
+		float distance = 0;
+		for (int i = 1; i < cells.length; i++) {
+			final boolean straight = cells[i - 1] % width == cells[i] % width || cells[i - 1] / width == cells[i] / width;
+			distance += straight ? 1f : DIAGONAL;
+			distances[i] = distance;
+		}
+	}
+
+	public int size() {
+		return cells.length;
+	}
+
+	public int getCell(int i) {
+		return cells[i];
+	}
+
+	public int getX(int i) {
+		return cells[i] % width;
+	}
+
+	public int getY(int i) {
+		return cells[i] / width;
+	}
+
+	/**
+	 * @return walking distance from the first cell to cell i, in cells.
+	 */
+	public float getDistance(int i) {
+		return distances[i];
+	}
+
+	/**
+	 * @return walking distance from the first to the last cell, in cells.
+	 */
+	public float getLength() {
+		return cells.length > 0 ? distances[cells.length - 1] : 0;
+	}
+}
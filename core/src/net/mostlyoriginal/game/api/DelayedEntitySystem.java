@@ -8,6 +8,7 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.utils.TimeUtils;
 import net.mostlyoriginal.game.manager.LayerManager;
 
+import java.util.Collections;
 import java.util.LinkedList;
 
 /**
@@ -30,10 +31,162 @@ public abstract class DelayedEntitySystem extends EntitySystem {
 
 	private LinkedList<Job> jobs = new LinkedList<>();
 
+	// bumped on restart, jobs of older generations are stale.
+	private volatile int generation;
+
+	// slices handed out by a scheduler, instead of running every process.
+	private boolean scheduled;
+	private long sliceDeadline;
+
+	// least time to compute per run, so slices always make progress.
+	private static final long MIN_SLICE_NANOS = 500000;
+
 	public static abstract interface Job extends Runnable {
 		boolean isCompleted();
 	}
 
+	/**
+	 * Job that can wait on work outside the ECS thread. While waiting running it again is pointless,
+	 * the rest of the slice is better spent on other systems.
+	 */
+	public static interface WaitingJob extends Job {
+		boolean isWaiting();
+	}
+
+	/**
+	 * Job split in a compute and apply step.
+	 * <p/>
+	 * In async mode compute runs on the worker pool, and should only touch inputs
+	 * snapshotted when the job was created. Apply always runs on the ECS thread, in job order.
+	 * Without async mode compute is sliced over runs on the ECS thread.
+	 * <p/>
+	 * Jobs of an older generation are cancelled, they never apply.
+	 */
+	public abstract class AsyncJob implements WaitingJob {
+
+		// compute slice on workers, between cancellation checks.
+		private static final long WORKER_SLICE_NANOS = 2000000;
+
+		private final int jobGeneration = generation;
+		private volatile boolean computed;
+		private volatile Throwable failure;
+		private boolean submitted;
+		private boolean started;
+		private boolean released;
+		private boolean applied;
+
+		/**
+		 * Continue computing for up to maxNanos.
+		 *
+		 * @return true when done.
+		 */
+		protected abstract boolean compute(long maxNanos);
+
+		/**
+		 * Apply computed results to the world.
+		 */
+		protected abstract void apply();
+
+		/**
+		 * Time to compute per run, when not async.
+		 */
+		protected long sliceMillis() {
+			return Math.max(1, maxDuration());
+		}
+
+		/**
+		 * Release resources held by a compute that will not finish, because it was cancelled or failed.
+		 * Called at most once.
+		 */
+		protected void cancelled() {
+		}
+
+		private void release() {
+			if (!released) {
+				released = true;
+				cancelled();
+			}
+		}
+
+		/**
+		 * Job dropped before it was applied. Computes in progress on the worker pool
+		 * release their own resources once they notice the cancellation.
+		 */
+		private void discard() {
+			if (!submitted && started && !computed) {
+				release();
+			}
+		}
+
+		public boolean isCancelled() {
+			return jobGeneration != generation;
+		}
+
+		private void submit() {
+			submitted = true;
+			WorkerPool.submit(Collections.singletonList(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						while (!isCancelled()) {
+							if (compute(WORKER_SLICE_NANOS)) {
+								computed = true;
+								return;
+							}
+						}
+						cancelled();
+					} catch (Throwable t) {
+						failure = t;
+						computed = true;
+					}
+				}
+			}));
+		}
+
+		@Override
+		public void run() {
+			if (applied) return;
+			if (isCancelled()) {
+				discard();
+				return;
+			}
+
+			if (!submitted) {
+				if (isAsync()) {
+					submit();
+					return;
+				}
+				started = true;
+				try {
+					computed = compute(scheduled ? remainingSliceNanos() : TimeUtils.millisToNanos(sliceMillis()));
+				} catch (Throwable t) {
+					failure = t;
+					release();
+					computed = true;
+				}
+			}
+
+			if (computed) {
+				applied = true;
+				if (failure != null) {
+					Gdx.app.error("Performance", getClass().getSimpleName() + " failed.", failure);
+				} else {
+					apply();
+				}
+			}
+		}
+
+		@Override
+		public boolean isCompleted() {
+			return applied || isCancelled();
+		}
+
+		@Override
+		public boolean isWaiting() {
+			return submitted && !computed && !isCancelled();
+		}
+	}
+
 	/**
 	 * Maximum duration in which to start new jobs.
 	 * <p/>
@@ -44,23 +197,63 @@ public abstract class DelayedEntitySystem extends EntitySystem {
 		return 0;
 	}
 
+	/**
+	 * Compute {@link AsyncJob}s on the worker pool. Only effective on backends with threads.
+	 */
+	protected boolean async() {
+		return false;
+	}
+
+	private boolean isAsync() {
+		return async() && WorkerPool.isSupported();
+	}
+
+	/**
+	 * Time left in the current slice, for jobs that split their own work.
+	 */
+	protected long remainingSliceNanos() {
+		return Math.max(MIN_SLICE_NANOS, sliceDeadline - TimeUtils.nanoTime());
+	}
+
 	@Override
 	protected void processEntities(ImmutableBag<Entity> entities) {
+		if (!scheduled) {
+			runSlice(TimeUtils.millisToNanos(maxDuration()));
+		}
+	}
+
+	/**
+	 * Collect jobs when dirty, then run jobs until budget runs out. Runs at least one job,
+	 * a job can overrun the budget.
+	 *
+	 * @param budgetNanos time in which to start new jobs.
+	 * @return nanoseconds spent.
+	 */
+	public long runSlice(long budgetNanos) {
+
+		final long start = TimeUtils.nanoTime();
+		sliceDeadline = start + budgetNanos;
 
 		if (dirty) {
-			if (!prerequisitesMet()) return;
+			if (!prerequisitesMet()) return 0;
 			dirty = false;
 			idle = false;
-			jobs.clear();
-			collectJobs(entities, jobs);
+			discardJobs();
+			generation++;
+			collectJobs(getActives(), jobs);
+
+			// start all computations right away, results are applied in job order.
+			if (isAsync()) {
+				for (Job job : jobs) {
+					if (job instanceof AsyncJob) {
+						((AsyncJob) job).submit();
+					}
+				}
+			}
 		}
 
-		// run one or multiple times, until allotted time runs out.
-		long start = TimeUtils.millis();
 		long now = start;
-
-		while (now <= start + maxDuration()) {
-
+		do {
 			Job runnable = !jobs.isEmpty() ? jobs.get(0) : null;
 			if (runnable != null) {
 				runnable.run();
@@ -69,9 +262,9 @@ public abstract class DelayedEntitySystem extends EntitySystem {
 					Gdx.app.debug("Performance", "Finished " + runnable.getClass().getSimpleName() + " remaining system jobs: " + jobs.size());
 				}
 
-				long duration = TimeUtils.millis() - now;
-				if ( duration > maxDuration() && duration > 25 ) {
-					Gdx.app.debug("Performance", "Slice of " + runnable.getClass().getSimpleName() + " took " + duration + "ms");
+				long duration = TimeUtils.nanoTime() - now;
+				if (duration > budgetNanos && duration > TimeUtils.millisToNanos(25)) {
+					Gdx.app.debug("Performance", "Slice of " + runnable.getClass().getSimpleName() + " took " + duration / 1000000 + "ms");
 				}
 			}
 
@@ -83,8 +276,25 @@ public abstract class DelayedEntitySystem extends EntitySystem {
 				break;
 			}
 
-			now = TimeUtils.millis();
+			// waiting on workers, spend the remaining time elsewhere.
+			final Job next = jobs.getFirst();
+			if (next instanceof WaitingJob && ((WaitingJob) next).isWaiting()) {
+				break;
+			}
+
+			now = TimeUtils.nanoTime();
+		} while (now - start < budgetNanos);
+
+		return TimeUtils.nanoTime() - start;
+	}
+
+	private void discardJobs() {
+		for (Job job : jobs) {
+			if (job instanceof AsyncJob) {
+				((AsyncJob) job).discard();
+			}
 		}
+		jobs.clear();
 	}
 
 	// called right after all jobs are done processing.
@@ -119,6 +329,10 @@ public abstract class DelayedEntitySystem extends EntitySystem {
 
 	public void setDirty(boolean dirty) {
 		this.dirty = dirty;
+		if (dirty) {
+			// cancel jobs in flight.
+			generation++;
+		}
 	}
 
 	/**
@@ -134,4 +348,27 @@ public abstract class DelayedEntitySystem extends EntitySystem {
 	public void setPrerequisiteSystems(DelayedEntitySystem... prerequisites) {
 		this.prerequisites = prerequisites;
 	}
+
+	public DelayedEntitySystem[] getPrerequisiteSystems() {
+		return prerequisites;
+	}
+
+	/**
+	 * Let a scheduler hand out slices through {@link #runSlice(long)}, instead of
+	 * running for {@link #maxDuration()} every process.
+	 */
+	public void setScheduled(boolean scheduled) {
+		this.scheduled = scheduled;
+	}
+
+	public boolean isScheduled() {
+		return scheduled;
+	}
+
+	/**
+	 * @return true if the output of this system is visible in the active view.
+	 */
+	public boolean feedsActiveView() {
+		return false;
+	}
 }
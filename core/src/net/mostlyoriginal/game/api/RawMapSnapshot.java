@@ -0,0 +1,48 @@
+package net.mostlyoriginal.game.api;
+
+import net.mostlyoriginal.game.api.artifact.ContentHash;
+
+/**
+ * Immutable copy of the RAW map layer pixels.
+ * <p/>
+ * Pixels are RGBA8888 in grid space (y * width + x, y pointing up), so
+ * readers don't need to touch the pixmap. A new snapshot with a higher
+ * version is created whenever the RAW layer changes.
+ *
+ * @author Daan van Yperen
+ */
+public class RawMapSnapshot {
+
+	public final int version;
+	public final int width;
+	public final int height;
+	public final int[] pixels;
+
+	private long contentHash;
+	private boolean hashed;
+
+	public RawMapSnapshot(int version, int width, int height, int[] pixels) {
+		this.version = version;
+		this.width = width;
+		this.height = height;
+		this.pixels = pixels;
+	}
+
+	/**
+	 * @return RGBA8888 color at grid location.
+	 */
+	public int get(int x, int y) {
+		return pixels[y * width + x];
+	}
+
+	/**
+	 * @return hash of the pixels, same pixels give the same hash across snapshots and runs.
+	 */
+	public long contentHash() {
+		if (!hashed) {
+			contentHash = ContentHash.hash(ContentHash.hash(ContentHash.EMPTY, width), pixels);
+			hashed = true;
+		}
+		return contentHash;
+	}
+}
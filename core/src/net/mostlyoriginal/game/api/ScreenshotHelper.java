@@ -13,6 +13,7 @@ import net.mostlyoriginal.game.system.logic.GameState;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * @author Daan van Yperen
@@ -79,4 +80,72 @@ public class ScreenshotHelper {
 	public Pixmap asPixmap(ImageElement imgElement) {
 		return null;
 	}
+
+	/**
+	 * Bulk read pixmap into RGBA8888 grid space, out[y * width + x] = getPixel(x, pixmapHeight - y).
+	 * Pixels outside the pixmap read as 0.
+	 */
+	public void readPixels(Pixmap pixmap, int[] out, int width, int height) {
+
+		if (pixmap.getFormat() != Pixmap.Format.RGBA8888) {
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					out[y * width + x] = pixmap.getPixel(x, pixmap.getHeight() - y);
+				}
+			}
+			return;
+		}
+
+		final ByteBuffer pixels = pixmap.getPixels();
+		final int pixmapWidth = pixmap.getWidth();
+		final int pixmapHeight = pixmap.getHeight();
+
+		for (int y = 0; y < height; y++) {
+			final int row = pixmapHeight - y;
+			for (int x = 0; x < width; x++) {
+				if (row < 0 || row >= pixmapHeight || x >= pixmapWidth) {
+					out[y * width + x] = 0;
+				} else {
+					final int i = (row * pixmapWidth + x) * 4;
+					out[y * width + x] = ((pixels.get(i) & 0xff) << 24) | ((pixels.get(i + 1) & 0xff) << 16) | ((pixels.get(i + 2) & 0xff) << 8) | (pixels.get(i + 3) & 0xff);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Bulk write RGBA8888 grid space pixels to pixmap, the inverse of {@link #readPixels(Pixmap, int[], int, int)}.
+	 * Pixels outside the pixmap are skipped.
+	 */
+	public void writePixels(Pixmap pixmap, int[] in, int width, int height) {
+
+		if (pixmap.getFormat() != Pixmap.Format.RGBA8888) {
+			final Pixmap.Blending blending = Pixmap.getBlending();
+			Pixmap.setBlending(Pixmap.Blending.None);
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					pixmap.drawPixel(x, pixmap.getHeight() - y, in[y * width + x]);
+				}
+			}
+			Pixmap.setBlending(blending);
+			return;
+		}
+
+		final ByteBuffer pixels = pixmap.getPixels();
+		final int pixmapWidth = pixmap.getWidth();
+		final int pixmapHeight = pixmap.getHeight();
+
+		for (int y = 0; y < height; y++) {
+			final int row = pixmapHeight - y;
+			if (row < 0 || row >= pixmapHeight) continue;
+			for (int x = 0; x < width && x < pixmapWidth; x++) {
+				final int i = (row * pixmapWidth + x) * 4;
+				final int color = in[y * width + x];
+				pixels.put(i, (byte) (color >>> 24));
+				pixels.put(i + 1, (byte) (color >>> 16));
+				pixels.put(i + 2, (byte) (color >>> 8));
+				pixels.put(i + 3, (byte) color);
+			}
+		}
+	}
 }
@@ -0,0 +1,38 @@
+package net.mostlyoriginal.game.api;
+
+/**
+ * Completion state of tasks submitted to the {@link WorkerPool}.
+ * Poll from the game thread, tasks report back from worker threads.
+ *
+ * @author Daan van Yperen
+ */
+public class WorkerBatch {
+
+	private int remaining;
+	private Throwable failure;
+
+	public WorkerBatch(int size) {
+		this.remaining = size;
+	}
+
+	public synchronized void completed(Throwable failure) {
+		if (failure != null && this.failure == null) {
+			this.failure = failure;
+		}
+		remaining--;
+	}
+
+	/**
+	 * @return true when all tasks have finished, successful or not.
+	 */
+	public synchronized boolean isDone() {
+		return remaining <= 0;
+	}
+
+	/**
+	 * @return first failure of any task, or null.
+	 */
+	public synchronized Throwable getFailure() {
+		return failure;
+	}
+}
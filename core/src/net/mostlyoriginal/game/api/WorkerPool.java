@@ -0,0 +1,56 @@
+package net.mostlyoriginal.game.api;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Run tasks on a shared fork-join pool.
+ * <p/>
+ * Backends without threads (GWT) override this class and run tasks inline,
+ * check {@link #isSupported()} before choosing a parallel code path.
+ *
+ * @author Daan van Yperen
+ */
+public class WorkerPool {
+
+	private static ForkJoinPool pool;
+
+	public static boolean isSupported() {
+		return true;
+	}
+
+	public static int getParallelism() {
+		return getPool().getParallelism();
+	}
+
+	/**
+	 * Submit tasks for background execution. Tasks should not touch the world or gdx resources.
+	 *
+	 * @return batch to poll for completion.
+	 */
+	public static WorkerBatch submit(List<? extends Runnable> tasks) {
+		final WorkerBatch batch = new WorkerBatch(tasks.size());
+		for (final Runnable task : tasks) {
+			getPool().execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						task.run();
+						batch.completed(null);
+					} catch (Throwable t) {
+						batch.completed(t);
+					}
+				}
+			});
+		}
+		return batch;
+	}
+
+	private static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			// worker threads are daemons, no need to shut down.
+			pool = new ForkJoinPool();
+		}
+		return pool;
+	}
+}
@@ -0,0 +1,124 @@
+package net.mostlyoriginal.game.api.artifact;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import net.mostlyoriginal.game.api.WorkerPool;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * Local directory of encoded artifacts, so analysis results survive a restart.
+ * <p/>
+ * Files are read through memory mapping, decoding reads straight from the page cache.
+ * Files are written on the worker pool, through a temporary file so readers never see partial files.
+ * <p/>
+ * Backends without a local file system (GWT) override this class, check {@link #isSupported()}.
+ *
+ * @author Daan van Yperen
+ */
+public class ArtifactDiskCache {
+
+	public static final String DIRECTORY = "cache/analysis";
+
+	// oldest files beyond this count are removed after each write.
+	private static final int MAX_FILES = 64;
+
+	private static final int MAGIC = 0x4e533259;
+	private static final int FORMAT_VERSION = 1;
+	private static final int HEADER_SIZE = 4 + 4 + 8;
+
+	public static boolean isSupported() {
+		return true;
+	}
+
+	/**
+	 * @return mapped artifact contents positioned after the header, or null when not cached or unreadable.
+	 */
+	public static ByteBuffer read(String name, long key) {
+		final File file = getFile(name, key);
+		if (!file.exists()) return null;
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+			 FileChannel channel = raf.getChannel()) {
+			// mapping stays valid after the channel closes.
+			final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || buffer.getLong() != key) {
+				Gdx.app.error("Performance", "Ignoring stale cache file " + file);
+				return null;
+			}
+			return buffer;
+		} catch (Exception e) {
+			Gdx.app.error("Performance", "Could not read cache file " + file, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Write artifact contents in the background.
+	 *
+	 * @param data contents, from position to limit. Not touched by the caller afterwards.
+	 */
+	public static void write(final String name, final long key, final ByteBuffer data) {
+		final File file = getFile(name, key);
+		WorkerPool.submit(Collections.singletonList(new Runnable() {
+			@Override
+			public void run() {
+				final File tmp = new File(file.getPath() + ".tmp");
+				try {
+					file.getParentFile().mkdirs();
+					try (FileOutputStream out = new FileOutputStream(tmp);
+						 FileChannel channel = out.getChannel()) {
+						final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+						header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(key).flip();
+						channel.write(header);
+						while (data.hasRemaining()) {
+							channel.write(data);
+						}
+					}
+					if (!tmp.renameTo(file)) {
+						// rename does not replace on all platforms.
+						file.delete();
+						tmp.renameTo(file);
+					}
+					prune(file.getParentFile());
+				} catch (Exception e) {
+					tmp.delete();
+					Gdx.app.error("Performance", "Could not write cache file " + file, e);
+				}
+			}
+		}));
+	}
+
+	private static synchronized void prune(File directory) {
+		final File[] files = directory.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.endsWith(".bin");
+			}
+		});
+		if (files == null || files.length <= MAX_FILES) return;
+
+		Arrays.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File a, File b) {
+				return Long.compare(a.lastModified(), b.lastModified());
+			}
+		});
+		for (int i = 0; i < files.length - MAX_FILES; i++) {
+			files[i].delete();
+		}
+	}
+
+	private static File getFile(String name, long key) {
+		final FileHandle handle = Gdx.files.local(DIRECTORY + "/" + name + "-" + Long.toHexString(key) + ".bin");
+		return handle.file();
+	}
+}
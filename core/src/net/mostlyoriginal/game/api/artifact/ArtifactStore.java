@@ -0,0 +1,129 @@
+package net.mostlyoriginal.game.api.artifact;
+
+import com.badlogic.gdx.Gdx;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used store of analysis results, keyed by a {@link ContentHash} of their inputs.
+ * <p/>
+ * Stores hold on to artifacts as is, callers should copy anything they mutate after storing or restoring.
+ * <p/>
+ * Stores with a {@link Codec} also persist artifacts in the {@link ArtifactDiskCache}, and fall back
+ * to disk on a memory miss.
+ *
+ * @author Daan van Yperen
+ */
+public class ArtifactStore<T> {
+
+	private final String name;
+	private final LinkedHashMap<Long, T> artifacts;
+	private Codec<T> codec;
+
+	private int hits;
+	private int misses;
+
+	public ArtifactStore(String name, final int capacity) {
+		this.name = name;
+		// access order, eldest entry is the least recently used.
+		this.artifacts = new LinkedHashMap<Long, T>(capacity + 1, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, T> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Encode artifacts to bytes and back, for the disk cache.
+	 */
+	public interface Codec<T> {
+		/** @return encoded size in bytes. */
+		int size(T artifact);
+
+		void encode(T artifact, ByteBuffer out);
+
+		/**
+		 * Data comes from disk, and can be corrupt. Check lengths with {@link #readLength(ByteBuffer, int)}.
+		 *
+		 * @return decoded artifact, or null if the data does not fit the current inputs.
+		 */
+		T decode(ByteBuffer in);
+	}
+
+	/**
+	 * Read an array length, and check the remaining data can hold that many elements.
+	 *
+	 * @param elementSize minimal encoded size of an element in bytes.
+	 * @throws IllegalStateException when the length is negative or exceeds the remaining data.
+	 */
+	public static int readLength(ByteBuffer in, int elementSize) {
+		final int length = in.getInt();
+		if (length < 0 || (long) length * elementSize > in.remaining()) {
+			throw new IllegalStateException("Invalid length " + length + ", " + in.remaining() + " bytes remaining.");
+		}
+		return length;
+	}
+
+	/**
+	 * Persist artifacts on disk, on backends that support it.
+	 */
+	public void setCodec(Codec<T> codec) {
+		this.codec = ArtifactDiskCache.isSupported() ? codec : null;
+	}
+
+	/**
+	 * @return artifact for key, or null when not stored.
+	 */
+	public T get(long key) {
+		T artifact = artifacts.get(key);
+		if (artifact == null && codec != null) {
+			artifact = load(key);
+		}
+		if (artifact != null) {
+			hits++;
+			Gdx.app.debug("Performance", name + " artifact " + Long.toHexString(key) + " reused (" + hits + " hits, " + misses + " misses).");
+		} else {
+			misses++;
+		}
+		return artifact;
+	}
+
+	public void put(long key, T artifact) {
+		artifacts.put(key, artifact);
+		if (codec != null) {
+			final ByteBuffer out = ByteBuffer.allocate(codec.size(artifact));
+			codec.encode(artifact, out);
+			out.flip();
+			ArtifactDiskCache.write(name.replace(' ', '-').toLowerCase(), key, out);
+		}
+	}
+
+	private T load(long key) {
+		final ByteBuffer in = ArtifactDiskCache.read(name.replace(' ', '-').toLowerCase(), key);
+		if (in == null) return null;
+
+		try {
+			final T artifact = codec.decode(in);
+			if (artifact != null) {
+				artifacts.put(key, artifact);
+				Gdx.app.debug("Performance", name + " artifact " + Long.toHexString(key) + " loaded from disk.");
+			}
+			return artifact;
+		} catch (RuntimeException | OutOfMemoryError e) {
+			// truncated, corrupt or from an older format.
+			Gdx.app.error("Performance", "Could not decode " + name + " artifact " + Long.toHexString(key), e);
+			return null;
+		}
+	}
+
+	public boolean contains(long key) {
+		return artifacts.containsKey(key);
+	}
+
+	public void clear() {
+		artifacts.clear();
+	}
+}
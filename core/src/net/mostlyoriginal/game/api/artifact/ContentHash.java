@@ -0,0 +1,58 @@
+package net.mostlyoriginal.game.api.artifact;
+
+/**
+ * 64 bit FNV-1a style hashing of analysis inputs.
+ * <p/>
+ * Hashes are stable between runs, so they can key persisted artifacts as well.
+ *
+ * @author Daan van Yperen
+ */
+public final class ContentHash {
+
+	/** Hash of no input. */
+	public static final long EMPTY = 0xcbf29ce484222325L;
+
+	private static final long PRIME = 0x100000001b3L;
+
+	private ContentHash() {
+	}
+
+	public static long hash(long hash, int value) {
+		return (hash ^ value) * PRIME;
+	}
+
+	public static long hash(long hash, long value) {
+		return hash(hash(hash, (int) value), (int) (value >>> 32));
+	}
+
+	public static long hash(long hash, boolean value) {
+		return hash(hash, value ? 1 : 0);
+	}
+
+	/**
+	 * Hash float by its rounded value with given precision, so tiny float noise does not change the hash.
+	 */
+	public static long hash(long hash, float value, float precision) {
+		return hash(hash, Math.round(value / precision));
+	}
+
+	public static long hash(long hash, int[] values) {
+		for (int value : values) {
+			hash = (hash ^ value) * PRIME;
+		}
+		return hash(hash, values.length);
+	}
+
+	public static long hash(long hash, byte[] values) {
+		final int length = values.length;
+		int i = 0;
+		// four bytes per round.
+		for (; i + 3 < length; i += 4) {
+			hash = (hash ^ ((values[i] & 0xff) | (values[i + 1] & 0xff) << 8 | (values[i + 2] & 0xff) << 16 | values[i + 3] << 24)) * PRIME;
+		}
+		for (; i < length; i++) {
+			hash = (hash ^ values[i]) * PRIME;
+		}
+		return hash(hash, length);
+	}
+}
@@ -0,0 +1,87 @@
+package net.mostlyoriginal.game.api.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * Floyd-Warshall on a dense cost matrix, for small graphs like the routables of a map.
+ * <p/>
+ * Costs are row major, [from * size + to], {@link #NO_EDGE} when there is no direct edge.
+ * Solving is O(size^3) without allocating, a few dozen nodes solve in well under a millisecond.
+ *
+ * @author Daan van Yperen
+ */
+public class AllPairsShortestPaths {
+
+	public static final float NO_EDGE = Float.POSITIVE_INFINITY;
+
+	public final int size;
+
+	// shortest cost and first hop on the shortest route, [from * size + to].
+	private final float[] cost;
+	private final int[] next;
+
+	public AllPairsShortestPaths(int size) {
+		this.size = size;
+		cost = new float[size * size];
+		next = new int[size * size];
+		clear();
+	}
+
+	/**
+	 * Remove all edges.
+	 */
+	public void clear() {
+		Arrays.fill(cost, NO_EDGE);
+		Arrays.fill(next, -1);
+		for (int i = 0; i < size; i++) {
+			cost[i * size + i] = 0;
+			next[i * size + i] = i;
+		}
+	}
+
+	/**
+	 * Add directed edge, keeps the cheapest edge between two nodes.
+	 */
+	public void setEdge(int from, int to, float edgeCost) {
+		final int i = from * size + to;
+		if (edgeCost < cost[i]) {
+			cost[i] = edgeCost;
+			next[i] = to;
+		}
+	}
+
+	/**
+	 * Resolve shortest routes between all pairs of nodes.
+	 */
+	public void solve() {
+		for (int k = 0; k < size; k++) {
+			final int rowK = k * size;
+			for (int i = 0; i < size; i++) {
+				final int rowI = i * size;
+				final float viaK = cost[rowI + k];
+				if (viaK == NO_EDGE) continue;
+				for (int j = 0; j < size; j++) {
+					final float candidate = viaK + cost[rowK + j];
+					if (candidate < cost[rowI + j]) {
+						cost[rowI + j] = candidate;
+						next[rowI + j] = next[rowI + k];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return cost of the shortest route, or {@link #NO_EDGE} when unreachable.
+	 */
+	public float getCost(int from, int to) {
+		return cost[from * size + to];
+	}
+
+	/**
+	 * @return node after from on the shortest route to destination, or -1 when unreachable.
+	 */
+	public int getNext(int from, int to) {
+		return next[from * size + to];
+	}
+}
@@ -0,0 +1,41 @@
+package net.mostlyoriginal.game.api.pathfinding.grid;
+
+/**
+ * Snapshot of a {@link DistanceField}, cost to reach each cell from the nearest source.
+ * <p/>
+ * Immutable, safe to share between systems.
+ *
+ * @author Daan van Yperen
+ */
+public class ArrivalField {
+
+	public final int width;
+	public final int height;
+	private final int[] cost;
+
+	public ArrivalField(int width, int height, int[] cost) {
+		this.width = width;
+		this.height = height;
+		this.cost = cost;
+	}
+
+	/**
+	 * @return cost to reach cell, or {@link DistanceField#UNREACHED}.
+	 */
+	public int getCost(int cell) {
+		return cost[cell];
+	}
+
+	/**
+	 * @return cost to reach cell, or {@link DistanceField#UNREACHED} when unreachable or out of bounds.
+	 */
+	public int getCost(int x, int y) {
+		if (x < 0 || y < 0 || x >= width || y >= height) return DistanceField.UNREACHED;
+		return cost[y * width + x];
+	}
+
+	public int getSizeInBytes() {
+		return cost.length * 4;
+	}
+
+}
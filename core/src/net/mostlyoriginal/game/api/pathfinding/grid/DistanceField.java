@@ -0,0 +1,176 @@
+package net.mostlyoriginal.game.api.pathfinding.grid;
+
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.util.Arrays;
+
+/**
+ * Multi-source distance field on grid cell indices (y * width + x).
+ * <p/>
+ * Floods from all sources at once with integer step costs, using a bucket queue
+ * (Dial's algorithm) instead of a heap. Step costs are small integers, so only
+ * {@link #DIAGONAL_COST} + 1 buckets are needed and every cell is settled in order of cost.
+ * <p/>
+ * All state is kept in primitive arrays that are reused between floods. Floods can be
+ * sliced over multiple runs with {@link #flood(long)}.
+ * <p/>
+ * Not thread safe, use one field per concurrent flood.
+ *
+ * @author Daan van Yperen
+ */
+public class DistanceField {
+
+	public static final int ORTHOGONAL_COST = 10;
+	public static final int DIAGONAL_COST = 14;
+
+	/** Cost of cells not reached by the last flood. */
+	public static final int UNREACHED = Integer.MAX_VALUE;
+
+	private static final int[] X_OFF = {-1, 0, 1, 1, 1, 0, -1, -1};
+	private static final int[] Y_OFF = {-1, -1, -1, 0, 1, 1, 1, 0};
+
+	// costs wrap around the buckets, all queued costs are within one max step of the current cost.
+	private static final int BUCKETS = DIAGONAL_COST + 1;
+
+	// check the clock every n settled cells, nanoTime is not free.
+	private static final int CLOCK_INTERVAL = 1024;
+
+	public final int width;
+	public final int height;
+
+	private final int[] cost;
+
+	// bucket queue of cell indices, bucket = cost % BUCKETS.
+	private final int[][] buckets = new int[BUCKETS][];
+	private final int[] bucketSize = new int[BUCKETS];
+	private int queued;
+	private int currentCost;
+
+	private GridGraph graph;
+	private int maxCost;
+
+	/** Number of cells settled during the last flood. */
+	public int settled;
+
+	public DistanceField(int width, int height) {
+		this.width = width;
+		this.height = height;
+		cost = new int[width * height];
+		Arrays.fill(cost, UNREACHED);
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets[i] = new int[64];
+		}
+	}
+
+	/**
+	 * Prepare a new flood. Add sources with {@link #addSource(int, int)}, then
+	 * call {@link #flood(long)} until it returns true.
+	 *
+	 * @param maxCost cells more expensive than this are left unreached.
+	 */
+	public void begin(GridGraph graph, int maxCost) {
+		this.graph = graph;
+		this.maxCost = maxCost;
+		Arrays.fill(cost, UNREACHED);
+		Arrays.fill(bucketSize, 0);
+		queued = 0;
+		currentCost = 0;
+		settled = 0;
+	}
+
+	/**
+	 * Start flooding from cell at cost zero. Sources do not need to be walkable.
+	 */
+	public void addSource(int x, int y) {
+		if (x < 0 || y < 0 || x >= width || y >= height) return;
+		final int cell = y * width + x;
+		if (cost[cell] != 0) {
+			cost[cell] = 0;
+			push(cell, 0);
+		}
+	}
+
+	/**
+	 * Continue the active flood.
+	 *
+	 * @param maxNanos time to spend before yielding.
+	 * @return true when all reachable cells within max cost are settled.
+	 */
+	public boolean flood(long maxNanos) {
+		final long startTime = TimeUtils.nanoTime();
+		int untilClockCheck = CLOCK_INTERVAL;
+
+		while (queued > 0) {
+			final int bucket = currentCost % BUCKETS;
+			if (bucketSize[bucket] == 0) {
+				currentCost++;
+				continue;
+			}
+
+			final int cell = buckets[bucket][--bucketSize[bucket]];
+			queued--;
+
+			// improved after it was queued, already settled at a lower cost.
+			if (cost[cell] != currentCost) continue;
+
+			settled++;
+			expand(cell);
+
+			if (--untilClockCheck == 0) {
+				untilClockCheck = CLOCK_INTERVAL;
+				if (TimeUtils.nanoTime() - startTime > maxNanos) return false;
+			}
+		}
+		return true;
+	}
+
+	private void expand(int cell) {
+		final int x = cell % width;
+		final int y = cell / width;
+
+		for (int dir = 0; dir < 8; dir++) {
+			final int xx = x + X_OFF[dir];
+			final int yy = y + Y_OFF[dir];
+
+			if (xx < 0 || yy < 0 || xx >= width || yy >= height)
+				continue;
+
+			final int neighbour = yy * width + xx;
+			final int newCost = currentCost + (X_OFF[dir] == 0 || Y_OFF[dir] == 0 ? ORTHOGONAL_COST : DIAGONAL_COST);
+
+			if (newCost <= maxCost && newCost < cost[neighbour] && graph.isWalkable(neighbour)) {
+				cost[neighbour] = newCost;
+				push(neighbour, newCost);
+			}
+		}
+	}
+
+	private void push(int cell, int cellCost) {
+		final int bucket = cellCost % BUCKETS;
+		if (bucketSize[bucket] == buckets[bucket].length) {
+			buckets[bucket] = Arrays.copyOf(buckets[bucket], bucketSize[bucket] * 2);
+		}
+		buckets[bucket][bucketSize[bucket]++] = cell;
+		queued++;
+	}
+
+	/**
+	 * @return cost to reach cell from the nearest source, or {@link #UNREACHED}.
+	 */
+	public int getCost(int cell) {
+		return cost[cell];
+	}
+
+	public int getCost(int x, int y) {
+		return cost[y * width + x];
+	}
+
+	/**
+	 * @return copy of the costs of the last flood.
+	 */
+	public ArrivalField toArrivalField() {
+		final int[] copy = new int[cost.length];
+		System.arraycopy(cost, 0, copy, 0, cost.length);
+		return new ArrivalField(width, height, copy);
+	}
+}
@@ -5,23 +5,29 @@ import com.badlogic.gdx.ai.pfa.indexed.IndexedGraph;
 import com.badlogic.gdx.utils.Array;
 
 /**
+ * Team view on a {@link NavigationGrid}.
+ * <p/>
+ * Nodes are created on demand, node index equals cell index.
+ *
  * @author Daan van Yperen
  */
 public class GridGraph implements IndexedGraph<GridNode> {
 
-	protected GridNode[][] nodes;
-	public int width;
-	public int height;
+	protected final NavigationGrid grid;
+	protected final int teamMask;
+	public final int width;
+	public final int height;
 
-	public GridGraph(int width, int height) {
-		this.width = width;
-		this.height = height;
-		nodes = new GridNode[height][width];
+	public GridGraph(NavigationGrid grid, int teamMask) {
+		this.grid = grid;
+		this.teamMask = teamMask;
+		this.width = grid.width;
+		this.height = grid.height;
 	}
 
 	@Override
 	public int getNodeCount() {
-		return nodes.length * nodes[0].length;
+		return width * height;
 	}
 
 	@Override
@@ -29,15 +35,22 @@ public class GridGraph implements IndexedGraph<GridNode> {
 		return fromNode.getConnections();
 	}
 
+	/**
+	 * @return node at location, or null if not walkable.
+	 */
 	public GridNode get(int x, int y) {
-		return nodes[y][x];
+		return isWalkable(x, y) ? new GridNode(this, x, y, y * width + x) : null;
 	}
 
-	public void bakeNeighbours()
-	{
+	public boolean isWalkable(int x, int y) {
+		return (grid.cells[y * width + x] & teamMask) != 0;
 	}
 
-	public void set(int x, int y, GridNode node) {
-		nodes[y][x] = node;
+	public boolean isWalkable(int index) {
+		return (grid.cells[index] & teamMask) != 0;
+	}
+
+	public NavigationGrid getGrid() {
+		return grid;
 	}
 }
@@ -0,0 +1,15 @@
+package net.mostlyoriginal.game.api.pathfinding.grid;
+
+/**
+ * Estimated cost between two grid cells, in the same units as the grid connection costs.
+ *
+ * @author Daan van Yperen
+ */
+public interface GridHeuristic {
+	float estimate(int x1, int y1, int x2, int y2);
+
+	/**
+	 * @return hash of the heuristic type and parameters, equal for heuristics that estimate the same.
+	 */
+	long contentHash();
+}
@@ -9,14 +9,13 @@ import com.badlogic.gdx.utils.Array;
  */
 public class GridNode implements IndexedNode<GridNode> {
 
-	public Array<Connection<GridNode>> neighbours;
 	private GridGraph graph;
 	public final int x;
 	public final int y;
 	private int index;
 
-	int xOff[] = {-1, 0, 1, 1, 1, 0, -1, -1};
-	int yOff[] = {-1, -1, -1, 0, 1, 1, 1, 0};
+	static final int xOff[] = {-1, 0, 1, 1, 1, 0, -1, -1};
+	static final int yOff[] = {-1, -1, -1, 0, 1, 1, 1, 0};
 
 	public GridNode(GridGraph graph, int x, int y, int index) {
 		this.graph = graph;
@@ -35,23 +34,24 @@ public class GridNode implements IndexedNode<GridNode> {
 		return index;
 	}
 
+	/**
+	 * Neighbours are derived from the grid on each call.
+	 */
 	@Override
 	public Array<Connection<GridNode>> getConnections() {
 
-		if (neighbours == null) {
-			neighbours = new Array<>(8);
+		final Array<Connection<GridNode>> neighbours = new Array<>(8);
 
-			for (int dir = 0; dir <= 7; dir++) {
-				final int xx = x + xOff[dir];
-				final int yy = y + yOff[dir];
+		for (int dir = 0; dir <= 7; dir++) {
+			final int xx = x + xOff[dir];
+			final int yy = y + yOff[dir];
 
-				if (xx >= 0 &&
-						yy >= 0 &&
-						xx < graph.width &&
-						yy < graph.height && graph.nodes[yy][xx] != null)
-					neighbours.add(new GridConnection<GridNode>(this, graph.nodes[yy][xx],
-							(xOff[dir] == 0 || yOff[dir] == 0 ? 1f : 1.414f) * 10f));
-			}
+			if (xx >= 0 &&
+					yy >= 0 &&
+					xx < graph.width &&
+					yy < graph.height && graph.isWalkable(xx, yy))
+				neighbours.add(new GridConnection<GridNode>(this, graph.get(xx, yy),
+						xOff[dir] == 0 || yOff[dir] == 0 ? GridPathFinder.ORTHOGONAL_COST : GridPathFinder.DIAGONAL_COST));
 		}
 
 		return neighbours;
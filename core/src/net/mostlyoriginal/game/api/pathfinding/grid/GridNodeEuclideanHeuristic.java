@@ -1,18 +1,41 @@
 package net.mostlyoriginal.game.api.pathfinding.grid;
 
 import com.badlogic.gdx.ai.pfa.Heuristic;
+import net.mostlyoriginal.game.api.artifact.ContentHash;
 
 /**
 * @author Daan van Yperen
 */
-public class GridNodeEuclideanHeuristic implements Heuristic<GridNode> {
+public class GridNodeEuclideanHeuristic implements Heuristic<GridNode>, GridHeuristic {
+
+	private final float scale;
+
+	/** Euclidean distance scaled to match the grid connection costs. */
+	public GridNodeEuclideanHeuristic() {
+		this(GridPathFinder.ORTHOGONAL_COST);
+	}
+
+	public GridNodeEuclideanHeuristic(float scale) {
+		this.scale = scale;
+	}
+
 	@Override
 	public float estimate(GridNode c1, GridNode c2) {
 		return calculate(c2.x - c1.x, c2.y - c1.y);
 	}
 
+	@Override
+	public float estimate(int x1, int y1, int x2, int y2) {
+		return calculate(x2 - x1, y2 - y1);
+	}
+
+	@Override
+	public long contentHash() {
+		return ContentHash.hash(ContentHash.hash(ContentHash.EMPTY, getClass().getName().hashCode()), scale, 0.0001f);
+	}
+
 	public float calculate(float deltaX, float deltaY){
-		return (float) Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+		return (float) Math.sqrt(deltaX * deltaX + deltaY * deltaY) * scale;
 	}
 
 }
@@ -0,0 +1,24 @@
+package net.mostlyoriginal.game.api.pathfinding.grid;
+
+import net.mostlyoriginal.game.api.artifact.ContentHash;
+
+/**
+ * Exact cost of an unobstructed 8-way route, consistent with the grid connection costs.
+ *
+ * @author Daan van Yperen
+ */
+public class GridOctileHeuristic implements GridHeuristic {
+
+	@Override
+	public float estimate(int x1, int y1, int x2, int y2) {
+		final int dx = Math.abs(x2 - x1);
+		final int dy = Math.abs(y2 - y1);
+		final int diagonal = Math.min(dx, dy);
+		return diagonal * GridPathFinder.DIAGONAL_COST + (Math.max(dx, dy) - diagonal) * GridPathFinder.ORTHOGONAL_COST;
+	}
+
+	@Override
+	public long contentHash() {
+		return ContentHash.hash(ContentHash.EMPTY, getClass().getName().hashCode());
+	}
+}
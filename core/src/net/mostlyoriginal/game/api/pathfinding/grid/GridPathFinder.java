@@ -0,0 +1,389 @@
+package net.mostlyoriginal.game.api.pathfinding.grid;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.util.Arrays;
+
+/**
+ * A* search on grid cell indices (y * width + x).
+ * <p/>
+ * Also supports one-to-many searches, flooding from a single source (Dijkstra)
+ * until all target cells are settled.
+ * <p/>
+ * All search state is kept in primitive arrays that are reused between searches,
+ * expanding a cell does not allocate. Searches can be sliced over multiple runs
+ * with {@link #search(long)}.
+ * <p/>
+ * Not thread safe, use one finder per concurrent search.
+ *
+ * @author Daan van Yperen
+ */
+public class GridPathFinder {
+
+	public static final float ORTHOGONAL_COST = 10f;
+	public static final float DIAGONAL_COST = 1.414f * 10f;
+
+	private static final int[] X_OFF = {-1, 0, 1, 1, 1, 0, -1, -1};
+	private static final int[] Y_OFF = {-1, -1, -1, 0, 1, 1, 1, 0};
+
+	// check the clock every n expansions, nanoTime is not free.
+	private static final int CLOCK_INTERVAL = 256;
+
+	// allowed float rounding error when validating heuristics.
+	private static final float HEURISTIC_TOLERANCE = 0.01f;
+
+	public final int width;
+	public final int height;
+
+	private GridGraph graph;
+	private GridHeuristic heuristic = new GridOctileHeuristic();
+
+	// report heuristics that overestimate, costly so debug only.
+	public boolean validateHeuristic = false;
+	private boolean heuristicViolated;
+
+	// per cell search state, only valid when stamp[cell] == searchId.
+	private final float[] cost;
+	private final int[] parent;
+	private final int[] stamp;
+	private final boolean[] closed;
+	private final int[] heapIndex;
+	private final int[] targetStamp;
+
+	// binary min heap of cell indices, ordered by estimated total cost.
+	private final int[] heap;
+	private final float[] heapCost;
+	private int heapSize;
+
+	private int searchId;
+	private int start;
+	private int goal;
+	private int goalX;
+	private int goalY;
+	private boolean flood;
+	private int remainingTargets;
+	private boolean searching;
+	private boolean found;
+
+	/** Number of cells expanded during the last search. */
+	public int expanded;
+
+	public GridPathFinder(int width, int height) {
+		this.width = width;
+		this.height = height;
+
+		final int size = width * height;
+		cost = new float[size];
+		parent = new int[size];
+		stamp = new int[size];
+		closed = new boolean[size];
+		heapIndex = new int[size];
+		targetStamp = new int[size];
+		heap = new int[size];
+		heapCost = new float[size];
+	}
+
+	public GridHeuristic getHeuristic() {
+		return heuristic;
+	}
+
+	/**
+	 * Heuristic for A* searches. One-to-many searches ignore the heuristic.
+	 */
+	public void setHeuristic(GridHeuristic heuristic) {
+		this.heuristic = heuristic;
+	}
+
+	/**
+	 * Prepare a new search. Call {@link #search(long)} until it returns true.
+	 *
+	 * @return false if start or goal are not walkable, no search is needed.
+	 */
+	public boolean begin(GridGraph graph, int startX, int startY, int goalX, int goalY) {
+		reset(graph, startX, startY, false);
+		this.goalX = goalX;
+		this.goalY = goalY;
+		this.goal = goalY * width + goalX;
+
+		if (!graph.isWalkable(startX, startY) || !graph.isWalkable(goalX, goalY)) {
+			return false;
+		}
+
+		addTarget(goal);
+		touch(start, 0, -1);
+		push(start, estimate(startX, startY));
+		searching = true;
+		return true;
+	}
+
+	/**
+	 * Prepare a one-to-many search from start, finishing when all reachable targets are settled.
+	 * Call {@link #search(long)} until it returns true, then use {@link #isSettled(int)} and
+	 * {@link #getPath(int)} per target.
+	 *
+	 * @param targets target cell indices.
+	 * @return false if start or none of the targets are walkable, no search is needed.
+	 */
+	public boolean beginFlood(GridGraph graph, int startX, int startY, int[] targets, int targetCount) {
+		reset(graph, startX, startY, true);
+
+		if (!graph.isWalkable(startX, startY)) {
+			return false;
+		}
+
+		for (int i = 0; i < targetCount; i++) {
+			final int target = targets[i];
+			if (graph.isWalkable(target % width, target / width)) {
+				addTarget(target);
+			}
+		}
+
+		if (remainingTargets == 0) {
+			return false;
+		}
+
+		touch(start, 0, -1);
+		push(start, 0);
+		searching = true;
+		return true;
+	}
+
+	private void reset(GridGraph graph, int startX, int startY, boolean flood) {
+		this.graph = graph;
+		this.flood = flood;
+		this.start = startY * width + startX;
+		this.goal = -1;
+		this.found = false;
+		this.expanded = 0;
+		this.heapSize = 0;
+		this.remainingTargets = 0;
+		this.searching = false;
+		this.heuristicViolated = false;
+		nextSearchId();
+	}
+
+	private void addTarget(int cell) {
+		// targets can share a cell, only count them once.
+		if (targetStamp[cell] != searchId) {
+			targetStamp[cell] = searchId;
+			remainingTargets++;
+		}
+	}
+
+	/**
+	 * Continue the active search.
+	 *
+	 * @param maxNanos time to spend before yielding.
+	 * @return true if the search is finished, either found or exhausted.
+	 */
+	public boolean search(long maxNanos) {
+		if (!searching) return true;
+
+		final long startTime = TimeUtils.nanoTime();
+		int untilClockCheck = CLOCK_INTERVAL;
+
+		while (heapSize > 0) {
+			final int current = pop();
+			closed[current] = true;
+
+			if (targetStamp[current] == searchId && --remainingTargets == 0) {
+				found = true;
+				searching = false;
+				if (validateHeuristic) validateAdmissible();
+				return true;
+			}
+
+			expanded++;
+			expand(current);
+
+			if (--untilClockCheck == 0) {
+				untilClockCheck = CLOCK_INTERVAL;
+				if (TimeUtils.nanoTime() - startTime > maxNanos) return false;
+			}
+		}
+
+		searching = false;
+		return true;
+	}
+
+	private void expand(int current) {
+		final int x = current % width;
+		final int y = current / width;
+		final float currentCost = cost[current];
+
+		for (int dir = 0; dir < 8; dir++) {
+			final int xx = x + X_OFF[dir];
+			final int yy = y + Y_OFF[dir];
+
+			if (xx < 0 || yy < 0 || xx >= width || yy >= height)
+				continue;
+
+			final int neighbour = yy * width + xx;
+			if (!graph.isWalkable(neighbour))
+				continue;
+			final float newCost = currentCost + (X_OFF[dir] == 0 || Y_OFF[dir] == 0 ? ORTHOGONAL_COST : DIAGONAL_COST);
+
+			if (validateHeuristic) validateConsistent(x, y, xx, yy, newCost - currentCost);
+
+			if (stamp[neighbour] != searchId) {
+				touch(neighbour, newCost, current);
+				push(neighbour, newCost + estimate(xx, yy));
+			} else if (!closed[neighbour] && newCost < cost[neighbour]) {
+				final float heuristic = heapCost[heapIndex[neighbour]] - cost[neighbour];
+				cost[neighbour] = newCost;
+				parent[neighbour] = current;
+				decrease(neighbour, newCost + heuristic);
+			}
+		}
+	}
+
+	private float estimate(int x, int y) {
+		return flood ? 0 : heuristic.estimate(x, y, goalX, goalY);
+	}
+
+	/**
+	 * A consistent heuristic never drops by more than the cost of a step.
+	 */
+	private void validateConsistent(int x, int y, int xx, int yy, float stepCost) {
+		if (!flood && !heuristicViolated && estimate(x, y) > stepCost + estimate(xx, yy) + HEURISTIC_TOLERANCE) {
+			heuristicViolated = true;
+			Gdx.app.error("Pathfinding", heuristic.getClass().getSimpleName() + " is not consistent at " + x + "," + y + " -> " + xx + "," + yy);
+		}
+	}
+
+	/**
+	 * An admissible heuristic never overestimates the cost of the found route.
+	 */
+	private void validateAdmissible() {
+		if (!flood && estimate(start % width, start / width) > cost[goal] + HEURISTIC_TOLERANCE) {
+			Gdx.app.error("Pathfinding", heuristic.getClass().getSimpleName() + " is not admissible, estimated " + estimate(start % width, start / width) + " for a route costing " + cost[goal]);
+		}
+	}
+
+	/**
+	 * @return cost of the route to the goal of the last successful search.
+	 */
+	public float getCost() {
+		return cost[goal];
+	}
+
+	/**
+	 * @return cost of the route to a settled cell of the last search.
+	 */
+	public float getCost(int cell) {
+		return cost[cell];
+	}
+
+	/**
+	 * @return true if the last search reached its goal, or all its targets when flooding.
+	 */
+	public boolean isFound() {
+		return found;
+	}
+
+	/**
+	 * @return true if the shortest path to cell is known.
+	 */
+	public boolean isSettled(int cell) {
+		return stamp[cell] == searchId && closed[cell];
+	}
+
+	/**
+	 * Cell indices from start to goal of the last successful search.
+	 */
+	public int[] getPath() {
+		return getPath(goal);
+	}
+
+	/**
+	 * Cell indices from start to a settled cell of the last search.
+	 */
+	public int[] getPath(int target) {
+		int length = 0;
+		for (int cell = target; cell != -1; cell = parent[cell]) length++;
+
+		final int[] path = new int[length];
+		for (int cell = target, i = length - 1; cell != -1; cell = parent[cell], i--) {
+			path[i] = cell;
+		}
+		return path;
+	}
+
+	private void nextSearchId() {
+		searchId++;
+		if (searchId == Integer.MAX_VALUE) {
+			// wrap around, invalidate all old stamps.
+			Arrays.fill(stamp, 0);
+			searchId = 1;
+		}
+	}
+
+	private void touch(int cell, float cellCost, int cellParent) {
+		stamp[cell] = searchId;
+		cost[cell] = cellCost;
+		parent[cell] = cellParent;
+		closed[cell] = false;
+	}
+
+	private void push(int cell, float priority) {
+		int i = heapSize++;
+		heap[i] = cell;
+		heapCost[i] = priority;
+		heapIndex[cell] = i;
+		siftUp(i);
+	}
+
+	private int pop() {
+		final int top = heap[0];
+		heapSize--;
+		if (heapSize > 0) {
+			move(heapSize, 0);
+			siftDown(0);
+		}
+		return top;
+	}
+
+	private void decrease(int cell, float priority) {
+		final int i = heapIndex[cell];
+		heapCost[i] = priority;
+		siftUp(i);
+	}
+
+	private void siftUp(int i) {
+		final int cell = heap[i];
+		final float priority = heapCost[i];
+		while (i > 0) {
+			final int up = (i - 1) >> 1;
+			if (heapCost[up] <= priority) break;
+			move(up, i);
+			i = up;
+		}
+		heap[i] = cell;
+		heapCost[i] = priority;
+		heapIndex[cell] = i;
+	}
+
+	private void siftDown(int i) {
+		final int cell = heap[i];
+		final float priority = heapCost[i];
+		final int half = heapSize >> 1;
+		while (i < half) {
+			int child = (i << 1) + 1;
+			final int right = child + 1;
+			if (right < heapSize && heapCost[right] < heapCost[child]) child = right;
+			if (priority <= heapCost[child]) break;
+			move(child, i);
+			i = child;
+		}
+		heap[i] = cell;
+		heapCost[i] = priority;
+		heapIndex[cell] = i;
+	}
+
+	private void move(int from, int to) {
+		heap[to] = heap[from];
+		heapCost[to] = heapCost[from];
+		heapIndex[heap[to]] = to;
+	}
+}
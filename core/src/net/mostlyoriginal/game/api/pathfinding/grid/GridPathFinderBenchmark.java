@@ -0,0 +1,119 @@
+package net.mostlyoriginal.game.api.pathfinding.grid;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compare heuristics on the same set of routes.
+ * <p/>
+ * Reports expanded cells and wall time per route, and totals per heuristic.
+ * Searches run to completion, so only use this for debugging.
+ *
+ * @author Daan van Yperen
+ */
+public class GridPathFinderBenchmark {
+
+	private final GridPathFinder finder;
+
+	public GridPathFinderBenchmark(GridPathFinder finder) {
+		this.finder = finder;
+	}
+
+	/**
+	 * Route between all pairs of cells, once per heuristic.
+	 *
+	 * @param label      name for this run in the log.
+	 * @param cells      cell indices to route between.
+	 * @param heuristics heuristics to compare, the first one is used as baseline for route cost.
+	 */
+	public void run(String label, GridGraph graph, int[] cells, int cellCount, GridHeuristic... heuristics) {
+
+		final GridHeuristic original = finder.getHeuristic();
+		float baselineCost = 0;
+		long baselineExpanded = 0;
+
+		for (int h = 0; h < heuristics.length; h++) {
+			final GridHeuristic heuristic = heuristics[h];
+			finder.setHeuristic(heuristic);
+
+			int routes = 0;
+			long totalExpanded = 0;
+			long totalNanos = 0;
+			float totalCost = 0;
+
+			for (int a = 0; a < cellCount; a++) {
+				for (int b = a + 1; b < cellCount; b++) {
+
+					final long start = TimeUtils.nanoTime();
+					if (finder.begin(graph, cells[a] % graph.width, cells[a] / graph.width, cells[b] % graph.width, cells[b] / graph.width)) {
+						finder.search(Long.MAX_VALUE);
+					}
+					final long nanos = TimeUtils.nanoTime() - start;
+
+					if (finder.isFound()) {
+						routes++;
+						totalExpanded += finder.expanded;
+						totalNanos += nanos;
+						totalCost += finder.getCost(cells[b]);
+						Gdx.app.debug("Benchmark", label + " " + heuristicName(heuristic) + " route " + a + "->" + b + ": " + finder.expanded + " cells, " + (nanos / 1000) + "us");
+					}
+				}
+			}
+
+			if (h == 0) {
+				baselineCost = totalCost;
+				baselineExpanded = totalExpanded;
+			}
+
+			Gdx.app.log("Benchmark", label + " " + heuristicName(heuristic) + ": " + routes + " routes, " +
+					(routes > 0 ? totalExpanded / routes : 0) + " cells and " +
+					(routes > 0 ? totalNanos / routes / 1000 : 0) + "us per route, route cost " +
+					(baselineCost > 0 ? Math.round(totalCost / baselineCost * 1000f) / 10f : 100f) + "% of baseline, " +
+					(totalExpanded > 0 ? Math.round(baselineExpanded * 10f / totalExpanded) / 10f : 1f) + "x fewer cells expanded than baseline.");
+		}
+
+		finder.setHeuristic(original);
+	}
+
+	/**
+	 * Route between random walkable cells on a generated grid with random wall blocks.
+	 * Same seed gives the same grid and cells, so runs are comparable between builds.
+	 */
+	public void runSynthetic(int width, int height, int cellCount, long seed, GridHeuristic... heuristics) {
+		final Random random = new Random(seed);
+		final NavigationGrid grid = new NavigationGrid(width, height);
+		Arrays.fill(grid.cells, (byte) 1);
+
+		// wall blocks, about a quarter of the grid.
+		for (int i = 0; i < width * height / 1000; i++) {
+			final int x = random.nextInt(width);
+			final int y = random.nextInt(height);
+			final int w = 2 + random.nextInt(30);
+			final int h = 2 + random.nextInt(30);
+			for (int yy = y; yy < Math.min(height, y + h); yy++) {
+				for (int xx = x; xx < Math.min(width, x + w); xx++) {
+					grid.cells[yy * width + xx] = 0;
+				}
+			}
+		}
+
+		final GridGraph graph = new GridGraph(grid, 1);
+		final int[] cells = new int[cellCount];
+		for (int i = 0; i < cellCount; i++) {
+			int cell;
+			do {
+				cell = random.nextInt(width * height);
+			} while (!graph.isWalkable(cell));
+			cells[i] = cell;
+		}
+
+		run("Synthetic " + width + "x" + height + " seed " + seed, graph, cells, cellCount, heuristics);
+	}
+
+	private String heuristicName(GridHeuristic heuristic) {
+		return heuristic.getClass().getSimpleName();
+	}
+}
@@ -0,0 +1,71 @@
+package net.mostlyoriginal.game.api.pathfinding.grid;
+
+/**
+ * Rectangle of grid cells, bounds inclusive.
+ *
+ * @author Daan van Yperen
+ */
+public class GridRegion {
+
+	public int minX;
+	public int minY;
+	public int maxX;
+	public int maxY;
+
+	public GridRegion(int minX, int minY, int maxX, int maxY) {
+		this.minX = minX;
+		this.minY = minY;
+		this.maxX = maxX;
+		this.maxY = maxY;
+	}
+
+	public GridRegion(GridRegion region) {
+		this(region.minX, region.minY, region.maxX, region.maxY);
+	}
+
+	/**
+	 * Grow to include region.
+	 */
+	public GridRegion union(GridRegion region) {
+		minX = Math.min(minX, region.minX);
+		minY = Math.min(minY, region.minY);
+		maxX = Math.max(maxX, region.maxX);
+		maxY = Math.max(maxY, region.maxY);
+		return this;
+	}
+
+	/**
+	 * Grow by cells on all sides.
+	 */
+	public GridRegion expand(int cells) {
+		minX -= cells;
+		minY -= cells;
+		maxX += cells;
+		maxY += cells;
+		return this;
+	}
+
+	/**
+	 * Restrict to a grid of width x height.
+	 */
+	public GridRegion clamp(int width, int height) {
+		minX = Math.max(minX, 0);
+		minY = Math.max(minY, 0);
+		maxX = Math.min(maxX, width - 1);
+		maxY = Math.min(maxY, height - 1);
+		return this;
+	}
+
+	public boolean contains(int x, int y) {
+		return x >= minX && x <= maxX && y >= minY && y <= maxY;
+	}
+
+	public boolean isEmpty() {
+		return minX > maxX || minY > maxY;
+	}
+
+	@Override
+	public String toString() {
+		return "[" + minX + "," + minY + " - " + maxX + "," + maxY + "]";
+	}
+}
@@ -0,0 +1,58 @@
+package net.mostlyoriginal.game.api.pathfinding.grid;
+
+/**
+ * Packed navigation grid shared by all teams.
+ * <p/>
+ * One byte per cell (y * width + x), holding a passability bit per team
+ * and a duct flag. Neighbours are derived from the cell index.
+ *
+ * @author Daan van Yperen
+ */
+public class NavigationGrid {
+
+	/** Cell is a duct. */
+	public static final int FLAG_DUCT = 0x80;
+
+	/** Bits available for team passability. */
+	public static final int MAX_TEAMS = 7;
+
+	public final int width;
+	public final int height;
+	public final byte[] cells;
+
+	public NavigationGrid(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.cells = new byte[width * height];
+	}
+
+	/**
+	 * @return passability bit for team with given index.
+	 */
+	public static int teamMask(int teamIndex) {
+		return 1 << teamIndex;
+	}
+
+	public boolean isPassable(int x, int y, int teamMask) {
+		return (cells[y * width + x] & teamMask) != 0;
+	}
+
+	public boolean isDuct(int x, int y) {
+		return (cells[y * width + x] & FLAG_DUCT) != 0;
+	}
+
+	/** Set flags on cell, leaving other flags untouched. */
+	public void mark(int x, int y, int flags) {
+		cells[y * width + x] |= flags;
+	}
+
+	/** Replace all flags of cell. */
+	public void set(int x, int y, int flags) {
+		cells[y * width + x] = (byte) flags;
+	}
+
+	/** Clear flags on cell, leaving other flags untouched. */
+	public void unmark(int x, int y, int flags) {
+		cells[y * width + x] &= ~flags;
+	}
+}
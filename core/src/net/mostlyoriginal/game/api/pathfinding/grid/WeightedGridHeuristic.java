@@ -0,0 +1,33 @@
+package net.mostlyoriginal.game.api.pathfinding.grid;
+
+import net.mostlyoriginal.game.api.artifact.ContentHash;
+
+/**
+ * Inflate another heuristic by a weight (epsilon).
+ * <p/>
+ * Expands far fewer cells, but found routes can be up to weight times longer than the
+ * shortest route. Useful for quick previews, not for final results.
+ *
+ * @author Daan van Yperen
+ */
+public class WeightedGridHeuristic implements GridHeuristic {
+
+	private final GridHeuristic heuristic;
+	private final float weight;
+
+	public WeightedGridHeuristic(GridHeuristic heuristic, float weight) {
+		this.heuristic = heuristic;
+		this.weight = weight;
+	}
+
+	@Override
+	public float estimate(int x1, int y1, int x2, int y2) {
+		return heuristic.estimate(x1, y1, x2, y2) * weight;
+	}
+
+	@Override
+	public long contentHash() {
+		final long key = ContentHash.hash(ContentHash.EMPTY, getClass().getName().hashCode());
+		return ContentHash.hash(ContentHash.hash(key, weight, 0.0001f), heuristic.contentHash());
+	}
+}
@@ -6,11 +6,8 @@ import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.math.Rectangle;
 import net.mostlyoriginal.game.Path;
-import net.mostlyoriginal.game.api.pathfinding.grid.GridNode;
 import net.mostlyoriginal.game.manager.LayerManager;
 
-import java.util.List;
-
 /**
  * Bitmap layer.
  */
@@ -47,24 +44,21 @@ public class Layer extends Component {
 	public void drawPath(Path path, Color color, boolean shadow) {
 
 		// shadow.
-		final List<GridNode> cells = path.cells;
+		final int size = path.size();
 
 		if (shadow) {
 			pixmap.setColor(new Color(0, 0, 0, 0.35f));
-			for (int i = 1; i < cells.size(); i++) {
-				GridNode p1 = cells.get(i - 1);
+			for (int i = 1; i < size; i++) {
 				pixmap.drawPixel(
-						p1.x, pixmap.getHeight() - p1.y + 1);
+						path.getX(i - 1), pixmap.getHeight() - path.getY(i - 1) + 1);
 			}
 		}
 
 		pixmap.setColor(color);
-		for (int i = 1; i < cells.size(); i++) {
-			GridNode p1 = cells.get(i - 1);
-			GridNode p2 = cells.get(i);
+		for (int i = 1; i < size; i++) {
 			pixmap.drawLine(
-					p1.x, pixmap.getHeight() - p1.y,
-					p2.x, pixmap.getHeight() - p2.y);
+					path.getX(i - 1), pixmap.getHeight() - path.getY(i - 1),
+					path.getX(i), pixmap.getHeight() - path.getY(i));
 		}
 	}
 
@@ -88,6 +82,15 @@ public class Layer extends Component {
 		pixmap.fill();
 	}
 
+	/** Clear to fully transparent, for layers drawn over other layers. */
+	public void clearTransparent() {
+		final Pixmap.Blending blending = Pixmap.getBlending();
+		Pixmap.setBlending(Pixmap.Blending.None);
+		pixmap.setColor(0, 0, 0, 0);
+		pixmap.fill();
+		Pixmap.setBlending(blending);
+	}
+
 	public void invalidateTexture() {
 		if (texture != null) {
 			texture.dispose();
@@ -1,11 +1,7 @@
 package net.mostlyoriginal.game.component;
 
 import com.artemis.Component;
-import com.badlogic.gdx.ai.pfa.Connection;
-import com.badlogic.gdx.ai.pfa.indexed.IndexedNode;
-import com.badlogic.gdx.utils.Array;
 import net.mostlyoriginal.game.Path;
-import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -14,7 +10,7 @@ import java.util.List;
 /**
  * @author Daan van Yperen
  */
-public class Routable extends Component implements IndexedNode<Routable> {
+public class Routable extends Component {
 	public HashMap<Team, List<Path>> paths = new HashMap<>();
 
 	public Routable() {
@@ -26,11 +22,6 @@ public class Routable extends Component implements IndexedNode<Routable> {
 	private boolean ignoreForPreferred = false;
 	private int x;
 	private int y;
-	private int index;
-
-	public void setIndex(int index) {
-		this.index = index;
-	}
 
 	public int getX() {
 		return x;
@@ -55,14 +46,4 @@ public class Routable extends Component implements IndexedNode<Routable> {
 	public void setIgnoreForPreferred(boolean ignoreForPreferred) {
 		this.ignoreForPreferred = ignoreForPreferred;
 	}
-
-	@Override
-	public int getIndex() {
-		return index;
-	}
-
-	@Override
-	public Array<Connection<Routable>> getConnections() {
-		throw new NotImplementedException();
-	}
 }
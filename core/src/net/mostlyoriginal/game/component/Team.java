@@ -35,7 +35,7 @@ public enum Team {
 	}
 
 	public int getTravelTimeInSeconds(Path path, float unitsPerPixel) {
-		return Math.round((path.getPixelLength() * unitsPerPixel) / getAvgSpeed());
+		return Math.round(path.getTravelSeconds(this, unitsPerPixel));
 	}
 
 }
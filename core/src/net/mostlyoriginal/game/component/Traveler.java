@@ -18,4 +18,7 @@ public class Traveler extends Component {
 	// the destination has been reached.
 	public float distanceTraveled;
 
+	// index of the last path cell passed, only moves forward while on a path.
+	public int cursor;
+
 }
@@ -24,7 +24,9 @@ public class RenderMask extends Component {
 		RT_SYMMETRY_ALIEN,
 		RT_SYMMETRY_MARINE,
 		RT_PRESSURE,
-		TEAM_DOMAINS
+		TEAM_DOMAINS,
+		ISOCHRONE_ALIEN,
+		ISOCHRONE_MARINE
 	}
 
 	public EnumSet<Mask> visible = EnumSet.noneOf(Mask.class);
@@ -1,9 +1,17 @@
 package net.mostlyoriginal.game.events;
 
 import net.mostlyoriginal.api.event.common.Event;
+import net.mostlyoriginal.game.api.pathfinding.grid.GridRegion;
 
 /**
  * @author Daan van Yperen
  */
 public class DrawEvent implements Event {
+
+	/** Grid cells painted on the RAW layer. */
+	public final GridRegion region;
+
+	public DrawEvent(GridRegion region) {
+		this.region = region;
+	}
 }
@@ -0,0 +1,241 @@
+package net.mostlyoriginal.game.manager;
+
+import com.artemis.ComponentMapper;
+import com.artemis.Entity;
+import com.artemis.Manager;
+import com.artemis.annotations.Wire;
+import com.badlogic.gdx.Gdx;
+import net.mostlyoriginal.game.api.artifact.ContentHash;
+import net.mostlyoriginal.game.api.pathfinding.grid.ArrivalField;
+import net.mostlyoriginal.game.api.pathfinding.grid.DistanceField;
+import net.mostlyoriginal.game.api.pathfinding.grid.GridGraph;
+import net.mostlyoriginal.game.component.Routable;
+import net.mostlyoriginal.game.component.Team;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Arrival time fields per team, from single routables or from all techpoints of an owner.
+ * <p/>
+ * Fields are flooded on first request and shared by all systems, after that point queries
+ * are array reads. Floods can be capped at a max cost, and sliced over multiple calls
+ * with {@link #buildNearestField(Team, Team, int, long)}.
+ * Least recently used fields are evicted above {@link #MEMORY_CAP_BYTES}.
+ * Fields are keyed by their source cells, and all fields are dropped when the grid changes.
+ *
+ * @author Daan van Yperen
+ */
+@Wire
+public class ArrivalFieldManager extends Manager {
+
+	public static final long MEMORY_CAP_BYTES = 48L * 1024 * 1024;
+
+	/** Flood the whole grid. */
+	public static final int UNCAPPED = DistanceField.UNREACHED - 1;
+
+	// floods kept in progress at most.
+	private static final int MAX_BUILDS = 8;
+
+	protected ComponentMapper<Routable> mRoutable;
+
+	private NavigationGridManager navigationGridManager;
+	private MapMetadataManager mapMetadataManager;
+	private TravelTimeManager travelTimeManager;
+
+	private final LinkedHashMap<Long, ArrivalField> fields = new LinkedHashMap<>(16, 0.75f, true);
+	private long memoryUsed;
+	private int gridVersion = -1;
+
+	// floods in progress, resumed by later calls with the same source and cap.
+	private final LinkedHashMap<Long, DistanceField> building = new LinkedHashMap<>();
+	private final ArrayList<DistanceField> spareFields = new ArrayList<>();
+
+	/**
+	 * @return arrival field of team from routable over the whole grid, flooded to completion when not cached.
+	 */
+	public ArrivalField getField(Team team, Entity routable) {
+		final Routable r = mRoutable.get(routable);
+		final long key = sourceKey(team, r.getX(), r.getY(), UNCAPPED);
+		buildField(key, team, new int[]{r.getY() * NavigationGridManager.GRID_WIDTH + r.getX()}, UNCAPPED, Long.MAX_VALUE);
+		return peek(key);
+	}
+
+	/**
+	 * Continue flooding the field of team from all sources at once, for up to maxNanos.
+	 *
+	 * @param sources cells, (y * width + x).
+	 * @return true when the field is cached under key.
+	 */
+	private boolean buildField(long key, Team team, int[] sources, int maxCost, long maxNanos) {
+		if (peek(key) != null) return true;
+
+		DistanceField field = building.get(key);
+		if (field == null) {
+			final GridGraph graph = navigationGridManager.getNavigationGrid(team);
+			field = obtainDistanceField(graph);
+			field.begin(graph, maxCost);
+			for (int cell : sources) {
+				field.addSource(cell % NavigationGridManager.GRID_WIDTH, cell / NavigationGridManager.GRID_WIDTH);
+			}
+			building.put(key, field);
+			dropStaleBuilds();
+		}
+
+		if (!field.flood(maxNanos)) return false;
+
+		building.remove(key);
+		put(key, field.toArrivalField());
+		recycle(field);
+		return true;
+	}
+
+	// sources that moved leave their floods behind, drop the oldest.
+	private void dropStaleBuilds() {
+		final Iterator<DistanceField> it = building.values().iterator();
+		while (building.size() > MAX_BUILDS) {
+			recycle(it.next());
+			it.remove();
+		}
+	}
+
+	private void recycle(DistanceField field) {
+		if (spareFields.size() < MAX_BUILDS) {
+			spareFields.add(field);
+		}
+	}
+
+	private DistanceField obtainDistanceField(GridGraph graph) {
+		while (!spareFields.isEmpty()) {
+			final DistanceField field = spareFields.remove(spareFields.size() - 1);
+			if (field.width == graph.width && field.height == graph.height) return field;
+		}
+		return new DistanceField(graph.width, graph.height);
+	}
+
+	/**
+	 * Arrival field of team from the nearest techpoint of owner.
+	 *
+	 * @param owner only techpoints owned by this team, or null for all techpoints.
+	 * @return field flooded from all techpoints at once, flooded to completion when not cached.
+	 */
+	public ArrivalField getNearestField(Team team, Team owner, int maxCost) {
+		final int[] sources = getTechpointCells(owner);
+		final long key = nearestKey(team, owner, sources, maxCost);
+		buildField(key, team, sources, maxCost, Long.MAX_VALUE);
+		return peek(key);
+	}
+
+	/**
+	 * Continue flooding the field of team from the nearest techpoint of owner, for up to maxNanos.
+	 *
+	 * @return true when the field is available.
+	 */
+	public boolean buildNearestField(Team team, Team owner, int maxCost, long maxNanos) {
+		final int[] sources = getTechpointCells(owner);
+		return buildField(nearestKey(team, owner, sources, maxCost), team, sources, maxCost, maxNanos);
+	}
+
+	/**
+	 * @return field of team from the nearest techpoint of owner, or null when not cached.
+	 */
+	public ArrivalField peekNearestField(Team team, Team owner, int maxCost) {
+		return peek(nearestKey(team, owner, getTechpointCells(owner), maxCost));
+	}
+
+	/**
+	 * @return techpoints of owner, as cells sorted by index.
+	 */
+	private int[] getTechpointCells(Team owner) {
+		final ArrayList<Integer> cells = new ArrayList<>();
+		for (int i = 0, s = travelTimeManager.size(); i < s; i++) {
+			final Entity e = travelTimeManager.get(i);
+			if (travelTimeManager.isTechpoint(i) && e.isActive() && (owner == null || travelTimeManager.getOwner(i) == owner)) {
+				final Routable r = mRoutable.get(e);
+				cells.add(r.getY() * NavigationGridManager.GRID_WIDTH + r.getX());
+			}
+		}
+		final int[] result = new int[cells.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = cells.get(i);
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * @return seconds team needs to travel from routable to cell, or -1 when unreachable.
+	 */
+	public float secondsTo(Team team, Entity routable, int x, int y) {
+		return toSeconds(team, getField(team, routable).getCost(x, y));
+	}
+
+	/**
+	 * @return seconds team needs to travel from the nearest techpoint of owner to cell, or -1 when unreachable.
+	 */
+	public float secondsToNearestTechpoint(Team team, Team owner, int x, int y) {
+		return toSeconds(team, getNearestField(team, owner, UNCAPPED).getCost(x, y));
+	}
+
+	/**
+	 * @return seconds to travel field cost for team, or -1 when unreachable.
+	 */
+	public float toSeconds(Team team, int cost) {
+		if (cost == DistanceField.UNREACHED) return -1;
+		return (cost / (float) DistanceField.ORTHOGONAL_COST) * mapMetadataManager.getMetadata().unitsPerPixel / team.getAvgSpeed();
+	}
+
+	/**
+	 * @return field cost team travels in seconds.
+	 */
+	public int toCost(Team team, float seconds) {
+		return (int) (team.getAvgSpeed() * seconds / mapMetadataManager.getMetadata().unitsPerPixel * DistanceField.ORTHOGONAL_COST);
+	}
+
+	private ArrivalField peek(long key) {
+		// fields flooded on an older grid are useless.
+		if (gridVersion != navigationGridManager.getVersion()) {
+			gridVersion = navigationGridManager.getVersion();
+			clear();
+			return null;
+		}
+		return fields.get(key);
+	}
+
+	private void put(long key, ArrivalField field) {
+		final ArrivalField previous = fields.put(key, field);
+		if (previous != null) memoryUsed -= previous.getSizeInBytes();
+		memoryUsed += field.getSizeInBytes();
+
+		// evict least recently used fields, always keep the newest.
+		final Iterator<Map.Entry<Long, ArrivalField>> it = fields.entrySet().iterator();
+		while (memoryUsed > MEMORY_CAP_BYTES && fields.size() > 1) {
+			final ArrivalField evicted = it.next().getValue();
+			it.remove();
+			memoryUsed -= evicted.getSizeInBytes();
+			Gdx.app.debug("Performance", "Evicted arrival field, " + fields.size() + " remaining.");
+		}
+	}
+
+	public void clear() {
+		fields.clear();
+		memoryUsed = 0;
+		for (DistanceField field : building.values()) {
+			recycle(field);
+		}
+		building.clear();
+	}
+
+	private static long sourceKey(Team team, int x, int y, int maxCost) {
+		final long key = ContentHash.hash(ContentHash.hash(ContentHash.hash(ContentHash.EMPTY, team.ordinal()), x), y);
+		return ContentHash.hash(key, maxCost);
+	}
+
+	private static long nearestKey(Team team, Team owner, int[] sources, int maxCost) {
+		long key = ContentHash.hash(ContentHash.hash(ContentHash.EMPTY, -1 - team.ordinal()), owner != null ? owner.ordinal() : -1);
+		return ContentHash.hash(ContentHash.hash(key, sources), maxCost);
+	}
+}
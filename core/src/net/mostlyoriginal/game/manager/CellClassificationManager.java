@@ -0,0 +1,178 @@
+package net.mostlyoriginal.game.manager;
+
+import com.artemis.Manager;
+import com.artemis.annotations.Wire;
+import com.badlogic.gdx.graphics.Color;
+import net.mostlyoriginal.game.api.artifact.ContentHash;
+import net.mostlyoriginal.game.api.pathfinding.grid.NavigationGrid;
+import net.mostlyoriginal.game.component.Team;
+
+import java.util.ArrayList;
+
+/**
+ * Classify raw map colors into cell classes.
+ * <p/>
+ * Colors are quantised to RGB555 plus an alpha >= 0.5 bit, each of the 65536
+ * keys is classified once against the palette. Classifying a pixel is a single
+ * array lookup, safe to call from worker threads while the palette is unchanged.
+ * <p/>
+ * Palette changes mark the lookup table dirty, it is rebuilt on the next lookup.
+ *
+ * @author Daan van Yperen
+ */
+@Wire
+public class CellClassificationManager extends Manager {
+
+	public static final byte BLOCKED = 0;
+	public static final byte FLOOR = 1;
+	// only aliens can walk over ducts.
+	public static final byte DUCT = 2;
+
+	public static final Color DUCT_COLOR = new Color(236 / 256f, 153 / 256f, 25 / 256f, 1f);
+	public static final Color FLOOR_COLOR = new Color(112 / 256f, 112 / 256f, 112 / 256f, 1f);
+
+	private static final int TABLE_SIZE = 1 << 16;
+
+	private final ArrayList<PaletteEntry> palette = new ArrayList<>();
+
+	private final byte[] classes = new byte[TABLE_SIZE];
+	private final byte[] navigationFlags = new byte[TABLE_SIZE];
+	private long paletteHash;
+
+	// palette changed since last rebuild.
+	private volatile boolean dirty = true;
+
+	@Override
+	protected void initialize() {
+		resetPalette();
+	}
+
+	/**
+	 * Restore default palette. Ducts are matched before white, white is blocked,
+	 * any other opaque color is floor.
+	 */
+	public void resetPalette() {
+		palette.clear();
+		addPaletteColor(DUCT_COLOR, 0.25f, DUCT);
+		addPaletteColor(Color.WHITE, 0.10f, BLOCKED);
+	}
+
+	/**
+	 * Classify colors within tolerance of color (rgb only). Palette entries are matched in order
+	 * of addition, colors not in the palette are floor when opaque.
+	 */
+	public void addPaletteColor(Color color, float tolerance, byte cellClass) {
+		palette.add(new PaletteEntry(new Color(color), tolerance, cellClass));
+		dirty = true;
+	}
+
+	public void clearPalette() {
+		palette.clear();
+		dirty = true;
+	}
+
+	/**
+	 * @param rgba8888 raw map color.
+	 * @return cell class of color.
+	 */
+	public byte classify(int rgba8888) {
+		if (dirty) rebuildIfDirty();
+		return classes[key(rgba8888)];
+	}
+
+	/**
+	 * @param rgba8888 raw map color.
+	 * @return packed navigation grid flags for color, team passability bits and duct flag.
+	 */
+	public int getNavigationFlags(int rgba8888) {
+		if (dirty) rebuildIfDirty();
+		return navigationFlags[key(rgba8888)] & 0xff;
+	}
+
+	public static boolean isPassable(byte cellClass, Team team) {
+		switch (cellClass) {
+			case FLOOR:
+				return true;
+			case DUCT:
+				return team == Team.ALIEN;
+			default:
+				return false;
+		}
+	}
+
+	private static int key(int rgba8888) {
+		return ((rgba8888 >>> 27) & 0x1f) << 11
+				| ((rgba8888 >>> 19) & 0x1f) << 6
+				| ((rgba8888 >>> 11) & 0x1f) << 1
+				| ((rgba8888 >>> 7) & 0x1);
+	}
+
+	private synchronized void rebuildIfDirty() {
+		if (dirty) rebuild();
+	}
+
+	/**
+	 * Classify all colors against the palette. Lookups do this when the palette changed,
+	 * call it directly to pay the cost up front.
+	 */
+	public synchronized void rebuild() {
+		final Color color = new Color();
+		for (int key = 0; key < TABLE_SIZE; key++) {
+
+			// classify the center of the quantised bucket.
+			color.r = (((key >>> 11) & 0x1f) * 8 + 4) / 255f;
+			color.g = (((key >>> 6) & 0x1f) * 8 + 4) / 255f;
+			color.b = (((key >>> 1) & 0x1f) * 8 + 4) / 255f;
+			color.a = (key & 0x1) != 0 ? 1f : 0f;
+
+			final byte cellClass = classify(color);
+			classes[key] = cellClass;
+
+			int flags = cellClass == DUCT ? NavigationGrid.FLAG_DUCT : 0;
+			for (Team team : Team.values()) {
+				if (isPassable(cellClass, team)) {
+					flags |= NavigationGridManager.getTeamMask(team);
+				}
+			}
+			navigationFlags[key] = (byte) flags;
+		}
+
+		paletteHash = ContentHash.hash(ContentHash.EMPTY, navigationFlags);
+		dirty = false;
+	}
+
+	/**
+	 * @return hash of the classification of all colors, changes when the palette classifies any color differently.
+	 */
+	public long getPaletteHash() {
+		if (dirty) rebuildIfDirty();
+		return paletteHash;
+	}
+
+	private byte classify(Color color) {
+		for (PaletteEntry entry : palette) {
+			if (entry.matches(color)) {
+				return entry.cellClass;
+			}
+		}
+		return color.a >= 0.5f ? FLOOR : BLOCKED;
+	}
+
+	private static class PaletteEntry {
+		private final Color color;
+		private final float tolerance;
+		private final byte cellClass;
+
+		private PaletteEntry(Color color, float tolerance, byte cellClass) {
+			this.color = color;
+			this.tolerance = tolerance;
+			this.cellClass = cellClass;
+		}
+
+		private boolean matches(Color c) {
+			return Math.abs(c.r - color.r) < tolerance &&
+					Math.abs(c.g - color.g) < tolerance &&
+					Math.abs(c.b - color.b) < tolerance;
+		}
+	}
+}
@@ -12,6 +12,7 @@ import net.mostlyoriginal.api.component.basic.Pos;
 import net.mostlyoriginal.api.component.graphics.Anim;
 import net.mostlyoriginal.api.component.graphics.Renderable;
 import net.mostlyoriginal.api.event.common.EventManager;
+import net.mostlyoriginal.game.api.pathfinding.grid.GridRegion;
 import net.mostlyoriginal.game.component.*;
 import net.mostlyoriginal.game.component.buildings.ResourceNode;
 import net.mostlyoriginal.game.component.buildings.Techpoint;
@@ -19,7 +20,7 @@ import net.mostlyoriginal.game.component.ui.*;
 import net.mostlyoriginal.game.events.DragEvent;
 import net.mostlyoriginal.game.events.DrawEvent;
 import net.mostlyoriginal.game.system.logic.ToolSystem;
-import net.mostlyoriginal.game.system.logic.analysis.NavigationGridCalculationSystem;
+import net.mostlyoriginal.game.system.render.layer.IsochroneSystem;
 
 import java.util.EnumSet;
 
@@ -124,11 +125,11 @@ public class EntityFactoryManager extends Manager {
         createInstancingButton("tool-resource-node", "resource-node", "resourceNode", 50);
         createInstancingButton("tool-techpoint", "techpoint", "techpoint", 50 + 40*1);
 
-        createDrawingButton("tool-draw-duct",  50 + 10 + 40 * 2, 2, NavigationGridCalculationSystem.DUCT_COLOR, 80);
-        createDrawingButton("tool-draw-floor",  50 + 10 + 40 * 3, 2, NavigationGridCalculationSystem.FLOOR_COLOR, 80);
+        createDrawingButton("tool-draw-duct",  50 + 10 + 40 * 2, 2, CellClassificationManager.DUCT_COLOR, 80);
+        createDrawingButton("tool-draw-floor",  50 + 10 + 40 * 3, 2, CellClassificationManager.FLOOR_COLOR, 80);
         createDrawingButton("tool-draw-clear",  50 + 10 + 40 * 4, 2, Color.WHITE, 80);
-        createDrawingButton("tool-draw-duct", 50 + 40 * 2, 6, NavigationGridCalculationSystem.DUCT_COLOR, 30);
-        createDrawingButton("tool-draw-floor",  50 + 40 * 3, 6, NavigationGridCalculationSystem.FLOOR_COLOR, 30);
+        createDrawingButton("tool-draw-duct", 50 + 40 * 2, 6, CellClassificationManager.DUCT_COLOR, 30);
+        createDrawingButton("tool-draw-floor",  50 + 40 * 3, 6, CellClassificationManager.FLOOR_COLOR, 30);
         createDrawingButton("tool-draw-clear", 50 + 40 * 4, 6, Color.WHITE, 30);
 
         addMaskTitle(RenderMask.Mask.BASIC, "Map overview", "Drag and place techpoints, rts, blockades and ducts.", "", "Rightclick to delete. Middleclick to cycle team on techpoints.");
@@ -138,6 +139,8 @@ public class EntityFactoryManager extends Manager {
         addMaskTitle(RenderMask.Mask.PATHFIND_ALIEN, "Alien - all routes", "Travel time in seconds for aliens.", "", "");
         addMaskTitle(RenderMask.Mask.PATHFIND_MARINE, "Marine - all routes", "Travel time in seconds for marines.", "", "");
         addMaskTitle(RenderMask.Mask.TEAM_DOMAINS, "Presence", "Estimated presence of each team, strong to weak.", "Overlap indicates high encounter chance.", "");
+        addMaskTitle(RenderMask.Mask.ISOCHRONE_ALIEN, "Alien - travel time bands", "Seconds from nearest alien techpoint.", "Each band is " + IsochroneSystem.DEFAULT_INTERVAL_SECONDS + " seconds.", "");
+        addMaskTitle(RenderMask.Mask.ISOCHRONE_MARINE, "Marine - travel time bands", "Seconds from nearest marine techpoint.", "Each band is " + IsochroneSystem.DEFAULT_INTERVAL_SECONDS + " seconds.", "");
     }
 
     LayerManager layerManager;
@@ -169,12 +172,20 @@ public class EntityFactoryManager extends Manager {
                             lastX = cursorPos.x;
                             lastY = cursorPos.y;
 
+                            final int cellX = (int) cursorPos.x / NavigationGridManager.PATHING_CELL_SIZE;
+                            final int cellY = (int) cursorPos.y / NavigationGridManager.PATHING_CELL_SIZE;
+
                             Layer raw = layerManager.getLayer("RAW", RenderMask.Mask.BASIC);
                             raw.pixmap.setColor(color);
-                            raw.pixmap.fillCircle((int)cursorPos.x / NavigationGridManager.PATHING_CELL_SIZE, NavigationGridManager.GRID_HEIGHT - (int)cursorPos.y / NavigationGridManager.PATHING_CELL_SIZE, scale);
+                            raw.pixmap.fillCircle(cellX, NavigationGridManager.GRID_HEIGHT - cellY, scale);
+
+                            // painted cells, in grid space.
+                            final GridRegion region = new GridRegion(cellX - scale, cellY - scale, cellX + scale, cellY + scale)
+                                    .clamp(NavigationGridManager.GRID_WIDTH, NavigationGridManager.GRID_HEIGHT);
 
                             raw.invalidateTexture();
-                            em.dispatch(new DrawEvent());
+                            layerManager.invalidateRawSnapshot(region);
+                            em.dispatch(new DrawEvent(region));
                         }
                     }
 
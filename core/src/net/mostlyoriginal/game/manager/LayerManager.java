@@ -6,10 +6,14 @@ import com.badlogic.gdx.graphics.Color;
 import net.mostlyoriginal.api.component.basic.Pos;
 import net.mostlyoriginal.api.component.graphics.Renderable;
 import net.mostlyoriginal.game.G;
+import net.mostlyoriginal.game.api.RawMapSnapshot;
+import net.mostlyoriginal.game.api.ScreenshotHelper;
+import net.mostlyoriginal.game.api.pathfinding.grid.GridRegion;
 import net.mostlyoriginal.game.component.Layer;
 import net.mostlyoriginal.game.component.Team;
 import net.mostlyoriginal.game.component.ui.RenderMask;
 
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.HashMap;
 
@@ -30,6 +34,16 @@ public class LayerManager extends Manager {
 	private Archetype layerArchetype;
 	private ComponentMapper<RenderMask> mRenderMask;
 
+	// immutable copy of the RAW layer, refreshed in bulk after RAW changes.
+	private final ScreenshotHelper screenshotHelper = new ScreenshotHelper();
+	private RawMapSnapshot rawSnapshot;
+	private boolean rawSnapshotDirty = true;
+	private GridRegion rawDirtyRegion;
+	private int rawVersion;
+
+	// team nav masks without route overlays, in grid space.
+	private HashMap<Team, int[]> teamNavMasks = new HashMap<>();
+
 	@Override
 	@SuppressWarnings("unchecked")
 	protected void initialize() {
@@ -37,6 +51,14 @@ public class LayerManager extends Manager {
 	}
 
 	public Layer getLayer( String key, RenderMask.Mask mask )
+	{
+		return getLayer(key, mask, -100);
+	}
+
+	/**
+	 * @param renderLayer draw order of a new layer, higher is in front.
+	 */
+	public Layer getLayer( String key, RenderMask.Mask mask, int renderLayer )
 	{
 		Layer layer = this.layers.get(key);
 		if (layer == null)
@@ -45,7 +67,7 @@ public class LayerManager extends Manager {
 			layer = mLayer.get(layerEntity);
 
 			Renderable renderable = mRenderable.get(layerEntity);
-			renderable.layer = -100;
+			renderable.layer = renderLayer;
 
 			mRenderMask.get(layerEntity).visible = EnumSet.of(mask);
 
@@ -77,18 +99,108 @@ public class LayerManager extends Manager {
 		return layer;
 	}
 
+	public Layer getRawLayer() {
+		return getLayer("RAW", RenderMask.Mask.BASIC);
+	}
+
+	/**
+	 * Call after drawing to the RAW layer. The snapshot is refreshed on next access.
+	 */
+	public void invalidateRawSnapshot() {
+		rawSnapshotDirty = true;
+		rawDirtyRegion = null;
+	}
+
+	/**
+	 * Call after drawing to part of the RAW layer. Only the region is read on the next refresh.
+	 */
+	public void invalidateRawSnapshot(GridRegion region) {
+		if (!rawSnapshotDirty) {
+			rawDirtyRegion = rawDirtyRegion == null ? new GridRegion(region) : rawDirtyRegion.union(region);
+		}
+	}
+
+	/**
+	 * Pixels of the RAW layer in grid space, use instead of getPixel on the RAW pixmap.
+	 * Snapshots are never modified, a changed RAW layer results in a new snapshot with a higher version.
+	 */
+	public RawMapSnapshot getRawSnapshot() {
+		if (rawSnapshot == null || rawSnapshotDirty) {
+			final int[] pixels = new int[LAYER_WIDTH * LAYER_HEIGHT];
+			screenshotHelper.readPixels(getRawLayer().pixmap, pixels, LAYER_WIDTH, LAYER_HEIGHT);
+			rawSnapshot = new RawMapSnapshot(++rawVersion, LAYER_WIDTH, LAYER_HEIGHT, pixels);
+			rawSnapshotDirty = false;
+			rawDirtyRegion = null;
+		} else if (rawDirtyRegion != null) {
+			rawSnapshot = patchRawSnapshot(rawSnapshot, rawDirtyRegion.clamp(LAYER_WIDTH, LAYER_HEIGHT));
+			rawDirtyRegion = null;
+		}
+		return rawSnapshot;
+	}
+
+	private RawMapSnapshot patchRawSnapshot(RawMapSnapshot previous, GridRegion region) {
+		final int[] pixels = new int[previous.pixels.length];
+		System.arraycopy(previous.pixels, 0, pixels, 0, pixels.length);
+
+		final Layer raw = getRawLayer();
+		final int pixmapHeight = raw.pixmap.getHeight();
+		for (int y = region.minY; y <= region.maxY; y++) {
+			final int row = pixmapHeight - y;
+			for (int x = region.minX; x <= region.maxX; x++) {
+				pixels[y * previous.width + x] = row >= 0 && row < pixmapHeight ? raw.pixmap.getPixel(x, row) : 0;
+			}
+		}
+
+		return new RawMapSnapshot(++rawVersion, previous.width, previous.height, pixels);
+	}
+
+	/**
+	 * Team nav mask without route overlays, RGBA8888 in grid space.
+	 */
+	public int[] getTeamNavMask(Team team) {
+		int[] mask = teamNavMasks.get(team);
+		if (mask == null) {
+			mask = new int[LAYER_WIDTH * LAYER_HEIGHT];
+			Arrays.fill(mask, Color.rgba8888(Color.WHITE));
+			teamNavMasks.put(team, mask);
+		}
+		return mask;
+	}
+
+	public void setTeamNavMask(Team team, int[] mask) {
+		teamNavMasks.put(team, mask);
+	}
+
+	/**
+	 * Restore team nav layer to its mask, removing any overlays.
+	 */
+	public void resetTeamNavLayer(Team team) {
+		final Layer layer = getTeamNavLayer(team);
+		layer.clear();
+		screenshotHelper.writePixels(layer.pixmap, getTeamNavMask(team), LAYER_WIDTH, LAYER_HEIGHT);
+		layer.invalidateTexture();
+	}
+
+	/**
+	 * Replace all pixels of layer in bulk, with RGBA8888 grid space pixels.
+	 */
+	public void writePixels(Layer layer, int[] pixels) {
+		screenshotHelper.writePixels(layer.pixmap, pixels, LAYER_WIDTH, LAYER_HEIGHT);
+		layer.invalidateTexture();
+	}
+
 	/** Clear with Map maked by color */
 	public void clearWithMap(Layer layer, Color color, float colorTransparancy) {
 		layer.clear();
 
-		final Layer rawMapLayer = getLayer("RAW", RenderMask.Mask.BASIC);
+		final RawMapSnapshot raw = getRawSnapshot();
 
 		Color tmpColor = new Color();
 
-		for (int x=0;x < rawMapLayer.pixmap.getWidth();x++) {
-			for (int y = 0; y < rawMapLayer.pixmap.getHeight(); y++)
+		for (int x=0;x < raw.width;x++) {
+			for (int y = 0; y < raw.height; y++)
 			{
-				int rawColor = rawMapLayer.pixmap.getPixel(x, rawMapLayer.pixmap.getHeight() - y);
+				int rawColor = raw.get(x, y);
 				boolean isWalkable= ((rawColor & 0x000000ff)) / 255f >= 0.5f;
 
 				// generate mask based on blockades.
@@ -103,7 +215,5 @@ public class LayerManager extends Manager {
 				}
 			}
 		}
-
-		rawMapLayer.invalidateTexture();
 	}
 }
@@ -2,10 +2,14 @@ package net.mostlyoriginal.game.manager;
 
 import com.artemis.Manager;
 import com.artemis.annotations.Wire;
+import net.mostlyoriginal.game.api.artifact.ContentHash;
 import net.mostlyoriginal.game.api.pathfinding.grid.GridGraph;
+import net.mostlyoriginal.game.api.pathfinding.grid.GridRegion;
+import net.mostlyoriginal.game.api.pathfinding.grid.NavigationGrid;
 import net.mostlyoriginal.game.component.Team;
 
 import java.util.HashMap;
+import java.util.LinkedList;
 
 /**
  * @author Daan van Yperen
@@ -19,8 +23,20 @@ public class NavigationGridManager extends Manager {
 
 	private LayerManager layerManager;
 
+	// patches older than this are forgotten, systems that lag behind further treat the whole grid as changed.
+	private static final int MAX_PATCH_HISTORY = 32;
+
+	private NavigationGrid grid;
 	private HashMap<Team, GridGraph> navGrid = new HashMap<>();
 
+	// bumped on every grid change.
+	private int version;
+	private int fullChangeVersion;
+	private LinkedList<Patch> patches = new LinkedList<>();
+
+	// hash of the grid cells, 0 until requested.
+	private long contentHash;
+
 	/**
 	 * Get raw navigation grid for team.
 	 *
@@ -31,7 +47,84 @@ public class NavigationGridManager extends Manager {
 		return navGrid.get(team);
 	}
 
-	public void setNavigationGrid(Team team, GridGraph grid) {
-		navGrid.put(team, grid);
+	/**
+	 * Get packed navigation grid, shared by all teams.
+	 */
+	public NavigationGrid getGrid() {
+		return grid;
+	}
+
+	public void setGrid(NavigationGrid grid) {
+		this.grid = grid;
+		navGrid.clear();
+		for (Team team : Team.values()) {
+			navGrid.put(team, new GridGraph(grid, getTeamMask(team)));
+		}
+		version++;
+		fullChangeVersion = version;
+		patches.clear();
+		contentHash = 0;
+	}
+
+	/**
+	 * Report cells of the active grid that were changed in place.
+	 */
+	public void gridPatched(GridRegion region) {
+		version++;
+		contentHash = 0;
+		patches.add(new Patch(version, new GridRegion(region)));
+		if (patches.size() > MAX_PATCH_HISTORY) {
+			patches.removeFirst();
+		}
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return hash of the grid cells, equal grids have equal hashes. 0 without a grid.
+	 */
+	public long getContentHash() {
+		if (contentHash == 0 && grid != null) {
+			contentHash = ContentHash.hash(ContentHash.EMPTY, grid.cells);
+		}
+		return contentHash;
+	}
+
+	/**
+	 * @param sinceVersion grid version last seen by caller.
+	 * @return cells changed after sinceVersion, null if the entire grid should be considered changed.
+	 * Empty if nothing changed.
+	 */
+	public GridRegion getChangedRegion(int sinceVersion) {
+		if (sinceVersion < fullChangeVersion || (!patches.isEmpty() && sinceVersion < patches.getFirst().version - 1)) {
+			return null;
+		}
+
+		GridRegion changed = null;
+		for (Patch patch : patches) {
+			if (patch.version > sinceVersion) {
+				changed = changed == null ? new GridRegion(patch.region) : changed.union(patch.region);
+			}
+		}
+		return changed != null ? changed : new GridRegion(0, 0, -1, -1);
+	}
+
+	/**
+	 * @return passability bit of team in the packed grid.
+	 */
+	public static int getTeamMask(Team team) {
+		return NavigationGrid.teamMask(team.ordinal());
+	}
+
+	private static class Patch {
+		private final int version;
+		private final GridRegion region;
+
+		private Patch(int version, GridRegion region) {
+			this.version = version;
+			this.region = region;
+		}
 	}
 }
@@ -0,0 +1,175 @@
+package net.mostlyoriginal.game.manager;
+
+import com.artemis.ComponentMapper;
+import com.artemis.Entity;
+import com.artemis.Manager;
+import com.artemis.annotations.Wire;
+import com.artemis.utils.ImmutableBag;
+import net.mostlyoriginal.game.Path;
+import net.mostlyoriginal.game.component.Routable;
+import net.mostlyoriginal.game.component.Team;
+import net.mostlyoriginal.game.component.TeamMember;
+import net.mostlyoriginal.game.component.buildings.Techpoint;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Dense travel distance matrix between all routables, per team.
+ * <p/>
+ * Built once when routes are resolved. Lookups are array reads, row i holds the
+ * distances from routable i to all other routables. Travel time is derived from
+ * distance on query, so scale changes don't require a rebuild.
+ *
+ * @author Daan van Yperen
+ */
+@Wire
+public class TravelTimeManager extends Manager {
+
+	/** Distance between routables without a route. */
+	public static final float UNREACHABLE = Float.POSITIVE_INFINITY;
+
+	protected ComponentMapper<Routable> mRoutable;
+	protected ComponentMapper<Techpoint> mTechpoint;
+	protected ComponentMapper<TeamMember> mTeamMember;
+
+	private MapMetadataManager mapMetadataManager;
+
+	private int size;
+	private Entity[] routables = new Entity[0];
+	private boolean[] techpoints = new boolean[0];
+	private HashMap<Entity, Integer> indices = new HashMap<>();
+
+	// row major, [from * size + to].
+	private HashMap<Team, float[]> distances = new HashMap<>();
+	private HashMap<Team, Path[]> paths = new HashMap<>();
+
+	/**
+	 * Rebuild matrix from the routes of routables.
+	 */
+	public void rebuild(ImmutableBag<Entity> entities) {
+		size = entities.size();
+		routables = new Entity[size];
+		techpoints = new boolean[size];
+		indices.clear();
+
+		for (int i = 0; i < size; i++) {
+			final Entity e = entities.get(i);
+			routables[i] = e;
+			techpoints[i] = mTechpoint.has(e);
+			indices.put(e, i);
+		}
+
+		for (Team team : Team.values()) {
+			final float[] teamDistances = new float[size * size];
+			final Path[] teamPaths = new Path[size * size];
+			Arrays.fill(teamDistances, UNREACHABLE);
+
+			for (int a = 0; a < size; a++) {
+				teamDistances[a * size + a] = 0;
+				for (Path path : mRoutable.get(routables[a]).paths.get(team)) {
+					final Integer b = path.destination.isActive() ? indices.get(path.destination.get()) : null;
+					if (b != null) {
+						teamDistances[a * size + b] = path.getLength();
+						teamPaths[a * size + b] = path;
+					}
+				}
+			}
+
+			distances.put(team, teamDistances);
+			paths.put(team, teamPaths);
+		}
+	}
+
+	/**
+	 * @return number of routables in the matrix.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public Entity get(int index) {
+		return routables[index];
+	}
+
+	/**
+	 * @return matrix index of e, or -1 if e was not routable during the last rebuild.
+	 */
+	public int indexOf(Entity e) {
+		final Integer index = indices.get(e);
+		return index != null ? index : -1;
+	}
+
+	public boolean isTechpoint(int index) {
+		return techpoints[index];
+	}
+
+	/**
+	 * @return current owner of techpoint, ownership can change without a rebuild.
+	 */
+	public Team getOwner(int index) {
+		final Entity e = routables[index];
+		return e.isActive() && mTeamMember.has(e) ? mTeamMember.get(e).team : null;
+	}
+
+	/**
+	 * @return travel distance in pixels for team, or {@link #UNREACHABLE}.
+	 */
+	public float getDistance(Team team, int from, int to) {
+		return distances.get(team)[from * size + to];
+	}
+
+	/**
+	 * @return route of team between routables, or null.
+	 */
+	public Path getPath(Team team, int from, int to) {
+		return paths.get(team)[from * size + to];
+	}
+
+	/**
+	 * @return travel time in seconds for team, or {@link #UNREACHABLE}.
+	 */
+	public float getSeconds(Team team, int from, int to) {
+		return getDistance(team, from, to) * mapMetadataManager.getMetadata().unitsPerPixel / team.getAvgSpeed();
+	}
+
+	/**
+	 * @return travel time in whole seconds, rounded like {@link Team#getTravelTimeInSeconds}. -1 when unreachable.
+	 */
+	public int getTravelTimeInSeconds(Team team, int from, int to) {
+		final float distance = getDistance(team, from, to);
+		return distance != UNREACHABLE ? Math.round((distance * mapMetadataManager.getMetadata().unitsPerPixel) / team.getAvgSpeed()) : -1;
+	}
+
+	/**
+	 * @param owner only consider techpoints owned by this team, or null for all techpoints.
+	 * @return index of the techpoint team reaches fastest from routable, or -1.
+	 */
+	public int getNearestTechpoint(Team team, int from, Team owner) {
+		final float[] teamDistances = distances.get(team);
+		final int row = from * size;
+
+		int nearest = -1;
+		float best = UNREACHABLE;
+		for (int to = 0; to < size; to++) {
+			if (to != from && techpoints[to] && teamDistances[row + to] < best && (owner == null || getOwner(to) == owner)) {
+				best = teamDistances[row + to];
+				nearest = to;
+			}
+		}
+		return nearest;
+	}
+
+	/**
+	 * Head start of aliens over marines, each from their nearest owned techpoint.
+	 *
+	 * @return seconds marines need more than aliens to reach the routable, negative when marines are faster.
+	 * 0 when either team cannot reach it.
+	 */
+	public int getHeadStart(int routable) {
+		final int alien = getNearestTechpoint(Team.ALIEN, routable, Team.ALIEN);
+		final int marine = getNearestTechpoint(Team.MARINE, routable, Team.MARINE);
+		if (alien == -1 || marine == -1) return 0;
+		return getTravelTimeInSeconds(Team.MARINE, routable, marine) - getTravelTimeInSeconds(Team.ALIEN, routable, alien);
+	}
+}
@@ -65,6 +65,7 @@ public class LayerLoaderSystem extends VoidEntitySystem {
 									Layer layer = layerManager.getLayer("RAW", RenderMask.Mask.BASIC);
 									layer.drawPixmapToFit(pixmap);
 									layer.invalidateTexture();
+									layerManager.invalidateRawSnapshot();
 									pixmap.dispose();
 									processed = true;
 
@@ -81,6 +82,7 @@ public class LayerLoaderSystem extends VoidEntitySystem {
 			loading = true;
 			processed = true;
 			layerManager.getLayer("RAW", RenderMask.Mask.BASIC).drawPixmapToFit(new Pixmap(Gdx.files.internal(mapFile)));
+			layerManager.invalidateRawSnapshot();
 		}
 	}
 
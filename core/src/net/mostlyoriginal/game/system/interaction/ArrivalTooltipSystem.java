@@ -0,0 +1,74 @@
+package net.mostlyoriginal.game.system.interaction;
+
+import com.artemis.ComponentMapper;
+import com.artemis.Entity;
+import com.artemis.annotations.Wire;
+import com.artemis.managers.TagManager;
+import com.artemis.systems.VoidEntitySystem;
+import net.mostlyoriginal.api.component.basic.Pos;
+import net.mostlyoriginal.game.api.pathfinding.grid.ArrivalField;
+import net.mostlyoriginal.game.component.Team;
+import net.mostlyoriginal.game.component.ui.RenderMask;
+import net.mostlyoriginal.game.manager.ArrivalFieldManager;
+import net.mostlyoriginal.game.manager.LayerManager;
+import net.mostlyoriginal.game.system.logic.RenderMaskHandlerSystem;
+import net.mostlyoriginal.game.system.render.layer.DomainSystem;
+
+/**
+ * Show travel time from the nearest owned techpoint of each team to the hovered cell.
+ * <p/>
+ * Only reads fields already flooded for the presence and travel time views, hovering never floods.
+ *
+ * @author Daan van Yperen
+ */
+@Wire
+public class ArrivalTooltipSystem extends VoidEntitySystem {
+
+	protected ComponentMapper<Pos> mPos;
+
+	private TagManager tagManager;
+	private ButtonSystem buttonSystem;
+	private ArrivalFieldManager arrivalFieldManager;
+	private RenderMaskHandlerSystem renderMaskHandlerSystem;
+	private DomainSystem domainSystem;
+
+	@Override
+	protected boolean checkProcessing() {
+		final RenderMask.Mask mask = renderMaskHandlerSystem.getActiveMask();
+		return mask == RenderMask.Mask.TEAM_DOMAINS || mask == RenderMask.Mask.ISOCHRONE_ALIEN || mask == RenderMask.Mask.ISOCHRONE_MARINE;
+	}
+
+	@Override
+	protected void processSystem() {
+		// button hints take precedence.
+		if (buttonSystem.hintlabel.text != null) return;
+
+		final Entity cursor = tagManager.getEntity("cursor");
+		if (cursor == null) return;
+
+		final Pos pos = mPos.get(cursor);
+		final int x = (int) pos.x / LayerManager.CELL_SIZE;
+		final int y = (int) pos.y / LayerManager.CELL_SIZE;
+
+		final RenderMask.Mask mask = renderMaskHandlerSystem.getActiveMask();
+		final String alien = mask != RenderMask.Mask.ISOCHRONE_MARINE ? describe(Team.ALIEN, mask, x, y) : null;
+		final String marine = mask != RenderMask.Mask.ISOCHRONE_ALIEN ? describe(Team.MARINE, mask, x, y) : null;
+		if (alien != null && mask == RenderMask.Mask.ISOCHRONE_ALIEN) {
+			buttonSystem.hintlabel.text = "From nearest alien techpoint, " + alien + ".";
+		} else if (marine != null && mask == RenderMask.Mask.ISOCHRONE_MARINE) {
+			buttonSystem.hintlabel.text = "From nearest marine techpoint, " + marine + ".";
+		} else if (alien != null && marine != null) {
+			buttonSystem.hintlabel.text = "From nearest techpoint, aliens " + alien + ", marines " + marine + ".";
+		}
+	}
+
+	private String describe(Team team, RenderMask.Mask mask, int x, int y) {
+		// presence floods up to its radius, isochrones flood the whole grid.
+		final boolean isochrone = mask == RenderMask.Mask.ISOCHRONE_ALIEN || mask == RenderMask.Mask.ISOCHRONE_MARINE;
+		final int maxCost = isochrone ? ArrivalFieldManager.UNCAPPED : domainSystem.getPresenceCost(team);
+		final ArrivalField field = arrivalFieldManager.peekNearestField(team, team, maxCost);
+		if (field == null) return null;
+		final float seconds = arrivalFieldManager.toSeconds(team, field.getCost(x, y));
+		return seconds >= 0 ? Math.round(seconds) + "s" : "unreachable";
+	}
+}
@@ -0,0 +1,163 @@
+package net.mostlyoriginal.game.system.logic;
+
+import com.artemis.EntitySystem;
+import com.artemis.annotations.Wire;
+import com.artemis.systems.VoidEntitySystem;
+import com.artemis.utils.ImmutableBag;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
+import net.mostlyoriginal.game.api.DelayedEntitySystem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Share one frame budget between all job systems.
+ * <p/>
+ * Systems run as stages of a dependency graph, built from their prerequisite systems
+ * (grid, routes, preferred routes, views). Stages are sliced in dependency order, so a stage
+ * starts in the same frame its prerequisites finish. Stages waiting on workers yield their
+ * slice, so independent stages progress side by side.
+ * <p/>
+ * Stages feeding the active view, and the stages they depend on, get their slice first.
+ * The remaining budget goes to the other stages.
+ * <p/>
+ * The budget adapts to the measured frame time: it shrinks sharply when frames run long,
+ * and grows slowly while frames are on time.
+ *
+ * @author Daan van Yperen
+ */
+@Wire
+public class FrameBudgetSystem extends VoidEntitySystem {
+
+	public static final long TARGET_FRAME_NANOS = 1000000000L / 60;
+	public static final long MIN_BUDGET_NANOS = 1000000;
+	public static final long MAX_BUDGET_NANOS = 12000000;
+
+	// frames over target * tolerance shrink the budget.
+	private static final float OVERRUN_TOLERANCE = 1.2f;
+	private static final float DECREASE_FACTOR = 0.75f;
+	private static final long INCREASE_NANOS = 500000;
+
+	private long budgetNanos = 4000000;
+	private long lastFrameStart;
+
+	private final ArrayList<DelayedEntitySystem> systems = new ArrayList<>();
+	private final ArrayList<DelayedEntitySystem> order = new ArrayList<>();
+
+	// when stages last finished and started, to report latency between stages.
+	private final HashMap<DelayedEntitySystem, Long> finishedAt = new HashMap<>();
+	private final HashMap<DelayedEntitySystem, Long> startedAt = new HashMap<>();
+
+	@Override
+	protected void initialize() {
+		ImmutableBag<EntitySystem> all = world.getSystems();
+		for (int i = 0, s = all.size(); i < s; i++) {
+			EntitySystem system = all.get(i);
+			if (system instanceof DelayedEntitySystem && !system.isPassive()) {
+				DelayedEntitySystem delayed = (DelayedEntitySystem) system;
+				delayed.setScheduled(true);
+				systems.add(delayed);
+			}
+		}
+	}
+
+	@Override
+	protected void processSystem() {
+
+		final long frameStart = TimeUtils.nanoTime();
+		if (lastFrameStart != 0) {
+			adaptBudget(frameStart - lastFrameStart);
+		}
+		lastFrameStart = frameStart;
+
+		prioritize();
+
+		long remaining = budgetNanos;
+		for (DelayedEntitySystem system : order) {
+			if (!system.isEnabled() || (!system.isDirty() && system.isIdle())) continue;
+
+			// always let stages start the frame their prerequisites finish, the first slice is cheap.
+			if (remaining <= 0 && !(system.isDirty() && prerequisitesFinishedAt(system, frameStart))) continue;
+
+			final boolean starting = system.isDirty();
+			final boolean running = !system.isIdle();
+			remaining -= system.runSlice(Math.max(0, remaining));
+
+			if (starting && !system.isDirty()) {
+				started(system);
+			}
+			if ((starting || running) && !system.isDirty() && system.isIdle()) {
+				finished(system);
+			}
+		}
+	}
+
+	private boolean prerequisitesFinishedAt(DelayedEntitySystem system, long frameStart) {
+		final DelayedEntitySystem[] prerequisites = system.getPrerequisiteSystems();
+		if (prerequisites.length == 0) return false;
+		for (DelayedEntitySystem prerequisite : prerequisites) {
+			final Long finished = finishedAt.get(prerequisite);
+			if (finished == null || finished < frameStart) return false;
+		}
+		return true;
+	}
+
+	private void started(DelayedEntitySystem system) {
+		final long now = TimeUtils.nanoTime();
+		startedAt.put(system, now);
+		for (DelayedEntitySystem prerequisite : system.getPrerequisiteSystems()) {
+			final Long finished = finishedAt.get(prerequisite);
+			if (finished != null) {
+				Gdx.app.debug("Performance", prerequisite.getClass().getSimpleName() + " -> " + system.getClass().getSimpleName() + " started after " + (now - finished) / 1000 + "us");
+			}
+		}
+	}
+
+	private void finished(DelayedEntitySystem system) {
+		final long now = TimeUtils.nanoTime();
+		finishedAt.put(system, now);
+		final Long started = startedAt.get(system);
+		if (started != null) {
+			Gdx.app.debug("Performance", system.getClass().getSimpleName() + " finished in " + (now - started) / 1000000 + "ms");
+		}
+	}
+
+	private void adaptBudget(long frameNanos) {
+		if (frameNanos > TARGET_FRAME_NANOS * OVERRUN_TOLERANCE) {
+			budgetNanos = Math.max(MIN_BUDGET_NANOS, (long) (budgetNanos * DECREASE_FACTOR));
+		} else {
+			budgetNanos = Math.min(MAX_BUDGET_NANOS, budgetNanos + INCREASE_NANOS);
+		}
+	}
+
+	/**
+	 * Order stages feeding the active view first, prerequisites before the stages depending on them.
+	 */
+	private void prioritize() {
+		order.clear();
+		for (DelayedEntitySystem system : systems) {
+			if (system.feedsActiveView()) {
+				addWithPrerequisites(system);
+			}
+		}
+		for (DelayedEntitySystem system : systems) {
+			addWithPrerequisites(system);
+		}
+	}
+
+	private void addWithPrerequisites(DelayedEntitySystem system) {
+		if (order.contains(system)) return;
+		for (DelayedEntitySystem prerequisite : system.getPrerequisiteSystems()) {
+			addWithPrerequisites(prerequisite);
+		}
+		order.add(system);
+	}
+
+	/**
+	 * @return nanoseconds job systems may spend this frame.
+	 */
+	public long getBudgetNanos() {
+		return budgetNanos;
+	}
+}
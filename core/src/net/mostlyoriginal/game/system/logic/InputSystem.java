@@ -32,6 +32,7 @@ public class InputSystem extends EntityProcessingSystem implements InputProcesso
 	private Input input;
 
 	private EventManager eventManager;
+	private TravelerSystem travelerSystem;
 
 	public boolean rightClicked;
 	public boolean leftClicked;
@@ -112,6 +113,11 @@ public class InputSystem extends EntityProcessingSystem implements InputProcesso
 	@Override
 	public boolean keyUp(int keycode) {
 
+		if (selectedInput == null && keycode == com.badlogic.gdx.Input.Keys.T) {
+			travelerSystem.toggleTraffic();
+			return true;
+		}
+
 		return false;
 	}
 
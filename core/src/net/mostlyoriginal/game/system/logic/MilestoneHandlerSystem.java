@@ -43,7 +43,7 @@ public class MilestoneHandlerSystem extends VoidEntitySystem {
 					if ( scale != 1) {
 						MapMetadata metadata = mapMetadataManager.getMetadata();
 						metadata.unitsPerPixel = MathUtils.clamp(metadata.unitsPerPixel*scale,0.01f,10f);
-						refreshHandlerSystem.restart();
+						refreshHandlerSystem.restart(RefreshHandlerSystem.Change.SCALE);
 					}
 				}
 			} catch ( NumberFormatException e ) {
@@ -123,6 +123,7 @@ public class PersistHandlerSystem extends EntitySystem {
 			GameState state = json.fromJson(GameState.class, msg);
 
 			new ScreenshotHelper().loadMapTexture(state, getRawLayer());
+			layerManager.invalidateRawSnapshot();
 
 			for (Element element : state.elements) {
 				Entity entity = entityFactoryManager.createEntity(element.id, element.x, element.y, null);
@@ -16,6 +16,8 @@ import net.mostlyoriginal.api.event.common.Subscribe;
 import net.mostlyoriginal.api.utils.EntityUtil;
 import net.mostlyoriginal.game.G;
 import net.mostlyoriginal.game.api.DelayedEntitySystem;
+import net.mostlyoriginal.game.api.pathfinding.grid.GridRegion;
+import net.mostlyoriginal.game.component.Routable;
 import net.mostlyoriginal.game.component.ui.Transient;
 import net.mostlyoriginal.game.events.DeleteEvent;
 import net.mostlyoriginal.game.events.DragEvent;
@@ -26,11 +28,15 @@ import net.mostlyoriginal.game.manager.LayerManager;
 import net.mostlyoriginal.game.system.logic.analysis.NavigationGridCalculationSystem;
 import net.mostlyoriginal.game.system.logic.analysis.PreferredRouteCalculationSystem;
 import net.mostlyoriginal.game.system.logic.analysis.RouteCalculationSystem;
+import net.mostlyoriginal.game.system.render.layer.BattlefrontSystem;
 import net.mostlyoriginal.game.system.render.layer.DomainSystem;
+import net.mostlyoriginal.game.system.render.layer.IsochroneSystem;
 import net.mostlyoriginal.game.system.render.layer.RoutePlotSystem;
 import net.mostlyoriginal.game.system.render.layer.TechpointPressureSystem;
 import net.mostlyoriginal.game.system.render.layer.TechpointSymmetrySystem;
 
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.LinkedList;
 
 /**
@@ -48,12 +54,36 @@ public class RefreshHandlerSystem extends DelayedEntitySystem {
 	private TechpointSymmetrySystem techpointSymmetrySystem;
 	private TechpointPressureSystem techpointPressureSystem;
 	private DomainSystem domainSystem;
+	private BattlefrontSystem battlefrontSystem;
+	private IsochroneSystem isochroneSystem;
 	private NavigationGridCalculationSystem navigationGridCalculationSystem;
 	private Entity refreshIndicator;
 
 	protected ComponentMapper<Angle> mAngle;
+	protected ComponentMapper<Routable> mRoutable;
 	private float restartAfterCooldown;
 
+	/**
+	 * Kind of change, determines which stages need to run again.
+	 */
+	public enum Change {
+		/** Walkability changed, rebuild navigation grid and all routes. */
+		GEOMETRY,
+		/** Routables placed, moved or removed, resolve routes. */
+		PLACEMENT,
+		/** Owner of techpoints changed, only views need to render again. */
+		OWNERSHIP,
+		/** Travel time scale changed, only views need to render again. */
+		SCALE
+	}
+
+	// changes since last restart.
+	private EnumSet<Change> pendingChanges = EnumSet.noneOf(Change.class);
+
+	// geometry and placement changes limited to part of the map or some routables.
+	private GridRegion drawnRegion;
+	private HashSet<Entity> movedRoutables = new HashSet<>();
+
 	@SuppressWarnings("unchecked")
 	public RefreshHandlerSystem() {
 		super(Aspect.getAspectForAll(Transient.class));
@@ -78,7 +108,7 @@ public class RefreshHandlerSystem extends DelayedEntitySystem {
 			restartAfterCooldown -= world.delta;
 			if ( restartAfterCooldown <= 0 )
 			{
-				restart();
+				refresh();
 			}
 		}
 	}
@@ -90,51 +120,105 @@ public class RefreshHandlerSystem extends DelayedEntitySystem {
 
 	@Subscribe
 	public void listenerMoved(DragEvent event) {
-		delayedRestart();
+		if (mRoutable.has(event.entity)) {
+			// only routes of the moved routable change.
+			movedRoutables.add(event.entity);
+			restartAfterCooldown = 0.2f;
+		} else {
+			delayedRestart(Change.GEOMETRY);
+		}
 	}
 
 	@Subscribe
 	public void listenerMoved(DeleteEvent event) {
-		delayedRestart();
+		delayedRestart(Change.PLACEMENT);
 	}
 
 	@Subscribe
 	public void listenerMoved(TeamChangeEvent event) {
-		delayedRestart();
+		delayedRestart(Change.OWNERSHIP);
 	}
 
 	@Subscribe
 	public void listenerMoved(DrawEvent event) {
-		delayedRestart();
+		drawnRegion = drawnRegion == null ? new GridRegion(event.region) : drawnRegion.union(event.region);
+		restartAfterCooldown = 0.2f;
 	}
 
-	private void delayedRestart() {
+	/**
+	 * Restart stages affected by change after a short cooldown, to batch up rapid changes.
+	 */
+	public void delayedRestart(Change change) {
+		pendingChanges.add(change);
 		restartAfterCooldown = 0.2f;
 	}
 
-
 	/**
 	 * restart all generation.
 	 */
 	public void restart() {
-		clearRoutes();
+		restart(Change.GEOMETRY);
 	}
 
-	private void clearRoutes() {
+	/**
+	 * Restart stages affected by change, and any pending changes.
+	 */
+	public void restart(Change change) {
+		pendingChanges.add(change);
+		refresh();
+	}
 
-		setDirty(true);
-		refreshIndicator.edit().remove(Invisible.class);
+	/**
+	 * Invalidate only the stages affected by pending changes.
+	 * <p/>
+	 * Drawing patches the drawn region of the navigation grid and moving routables only resolves
+	 * their routes. Ownership and scale changes skip grid and route stages entirely.
+	 */
+	private void refresh() {
+
+		final boolean geometry = pendingChanges.contains(Change.GEOMETRY);
+		final boolean placement = geometry || pendingChanges.contains(Change.PLACEMENT);
+		final boolean partial = drawnRegion != null || !movedRoutables.isEmpty();
 
 		// Core Dependencies
-		navigationGridCalculationSystem.setDirty(true);
-		routeCalculationSystem.setDirty(true);
-		preferredRouteCalculationSystem.setDirty(true);
+		if (geometry) {
+			navigationGridCalculationSystem.setDirty(true);
+		} else if (drawnRegion != null) {
+			navigationGridCalculationSystem.patch(drawnRegion);
+		}
+
+		if (placement) {
+			routeCalculationSystem.setDirty(true);
+		} else if (partial) {
+			for (Entity e : movedRoutables) {
+				routeCalculationSystem.moved(e);
+			}
+			routeCalculationSystem.repair();
+		}
+
+		if (placement || partial) {
+			// purges labels once routes are done.
+			preferredRouteCalculationSystem.setDirty(true);
+		} else {
+			// views are about to render new labels.
+			purgeAllTransientEntities();
+		}
+
+		pendingChanges.clear();
+		drawnRegion = null;
+		movedRoutables.clear();
+		restartAfterCooldown = 0;
+
+		setDirty(true);
+		refreshIndicator.edit().remove(Invisible.class);
 
 		// Separate view specific:
 		routePlotSystem.setDirty(true);
 		techpointSymmetrySystem.setDirty(true);
 		techpointPressureSystem.setDirty(true);
 		domainSystem.setDirty(true);
+		battlefrontSystem.setDirty(true);
+		isochroneSystem.setDirty(true);
 	}
 
 	public void purgeAllTransientEntities() {
@@ -44,6 +44,8 @@ public class RenderMaskHandlerSystem extends EntityProcessingSystem {
 
 		// row 2
 		createLayerButton(50 + 40 * 16, "layer-7", RenderMask.Mask.TEAM_DOMAINS, 50);
+		createLayerButton(50 + 40 * 17, "layer-3", RenderMask.Mask.ISOCHRONE_ALIEN, 50);
+		createLayerButton(50 + 40 * 18, "layer-2", RenderMask.Mask.ISOCHRONE_MARINE, 50);
 	}
 
 	private void createLayerButton(int x, String id, final RenderMask.Mask mask, int y) {
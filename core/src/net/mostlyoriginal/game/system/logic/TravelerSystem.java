@@ -6,22 +6,26 @@ import com.artemis.Entity;
 import com.artemis.annotations.Wire;
 import com.artemis.systems.EntityProcessingSystem;
 import com.badlogic.gdx.math.MathUtils;
-import com.badlogic.gdx.math.Vector2;
 import net.mostlyoriginal.api.component.basic.Bounds;
 import net.mostlyoriginal.api.component.basic.Pos;
 import net.mostlyoriginal.game.Path;
-import net.mostlyoriginal.game.api.pathfinding.grid.GridNode;
 import net.mostlyoriginal.game.component.Routable;
 import net.mostlyoriginal.game.component.Team;
 import net.mostlyoriginal.game.component.TeamMember;
 import net.mostlyoriginal.game.component.Traveler;
 import net.mostlyoriginal.game.manager.LayerManager;
+import net.mostlyoriginal.game.manager.MapMetadataManager;
+import net.mostlyoriginal.game.manager.TravelTimeManager;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Assists travelers in their travels.
+ * <p/>
+ * Besides traveler entities, simulates bulk traffic of agents walking preferred routes.
+ * Agents are kept in parallel arrays, each with a cursor into the cumulative distances
+ * of its path, so a frame costs a few array reads per agent.
  *
  * @author Daan van Yperen
  */
@@ -33,7 +37,27 @@ public class TravelerSystem extends EntityProcessingSystem {
 	protected ComponentMapper<TeamMember> mTeamMember;
 	protected ComponentMapper<Routable> mRoutable;
 	protected ComponentMapper<Bounds> mBounds;
-	private static Vector2 vTmp = new Vector2();
+
+	private MapMetadataManager mapMetadataManager;
+	private TravelTimeManager travelTimeManager;
+
+	// agents per team spawned by bulk traffic.
+	public static final int TRAFFIC_PER_TEAM = 2500;
+
+	private int agentCount;
+	private byte[] agentTeam = new byte[0];
+	private Path[] agentPath = new Path[0];
+	private Routable[] agentLocation = new Routable[0];
+	private float[] agentDistance = new float[0];
+	private int[] agentCursor = new int[0];
+	private float[] agentX = new float[0];
+	private float[] agentY = new float[0];
+
+	// Team.values() copies, index teams by ordinal here.
+	private static final Team[] TEAMS = Team.values();
+
+	// distance per team walked this frame, in cells.
+	private final float[] agentStep = new float[TEAMS.length];
 
 	@SuppressWarnings("unchecked")
 	public TravelerSystem() {
@@ -67,21 +91,13 @@ public class TravelerSystem extends EntityProcessingSystem {
 		{
 			// estimate location based on path vs distance traveled.
 
-			float distance = 0;
-			float length = 0;
-			List<GridNode> cells = traveler.path.cells;
-			for (int i = 1; i < cells.size(); i++) {
-				GridNode c1 = cells.get(i-1);
-				GridNode c2 = cells.get(i);
-				length += vTmp.set(c1.x, c1.y).sub(c2.x, c2.y).len();
-
-				if ( length >= traveler.distanceTraveled )
-				{
-					// put at approximate location on path.
-					pos.x = c1.x * LayerManager.CELL_SIZE - bounds.cx();
-					pos.y = c1.y * LayerManager.CELL_SIZE - bounds.cy();
-					return;
-				}
+			final Path path = traveler.path;
+			if ( path.size() > 1 && traveler.distanceTraveled <= path.getLength() )
+			{
+				// put at approximate location on path.
+				traveler.cursor = advance(path, traveler.cursor, traveler.distanceTraveled);
+				pos.x = path.getX(traveler.cursor) * LayerManager.CELL_SIZE - bounds.cx();
+				pos.y = path.getY(traveler.cursor) * LayerManager.CELL_SIZE - bounds.cy();
 			}
 		} else {
 
@@ -94,7 +110,8 @@ public class TravelerSystem extends EntityProcessingSystem {
 	private void pickRandomDestination(Traveler traveler, TeamMember teamMember) {
 		// test traveler logic.
 		traveler.distanceTraveled = 0;
-		traveler.path = randomPath(traveler, teamMember.team);
+		traveler.cursor = 0;
+		traveler.path = randomPath(traveler.location, teamMember.team);
 	}
 
 	private void travelPath(Traveler traveler, TeamMember teamMember) {
@@ -102,7 +119,7 @@ public class TravelerSystem extends EntityProcessingSystem {
 	}
 
 	private void checkDestinationReached(Traveler traveler) {
-		if ( traveler.distanceTraveled > traveler.path.getPixelLength() )
+		if ( traveler.distanceTraveled > traveler.path.getLength() )
 		{
 			if ( traveler.path.destination.isActive()) {
 				traveler.location = mRoutable.get(traveler.path.destination.get());
@@ -111,15 +128,162 @@ public class TravelerSystem extends EntityProcessingSystem {
 		}
 	}
 
-	private Path randomPath(Traveler traveler, Team team ) {
-		List<Path> paths = traveler.location.paths.get(team);
+	/**
+	 * Move cursor forward to the last cell at or before distance.
+	 */
+	private static int advance(Path path, int cursor, float distance) {
+		final int last = path.size() - 1;
+		while (cursor < last && path.getDistance(cursor + 1) <= distance) {
+			cursor++;
+		}
+		return cursor;
+	}
+
+	/**
+	 * @return random preferred path from location, or null.
+	 */
+	private Path randomPath(Routable location, Team team ) {
+		final List<Path> paths = location.paths.get(team);
+
+		int valid = 0;
+		for (int i = 0, s = paths.size(); i < s; i++) {
+			if ( paths.get(i).preferred )
+				valid++;
+		}
+
+		if ( valid == 0 ) return null;
+
+		int pick = MathUtils.random(valid - 1);
+		for (int i = 0, s = paths.size(); i < s; i++) {
+			final Path path = paths.get(i);
+			if ( path.preferred && pick-- == 0 )
+				return path;
+		}
+		return null;
+	}
+
+	@Override
+	protected void end() {
+		if (agentCount > 0) {
+			updateAgents(world.delta, mapMetadataManager.getMetadata().unitsPerPixel);
+		}
+	}
+
+	/**
+	 * Spawn count agents per team on random routables, walking random preferred routes.
+	 */
+	public void spawnTraffic(int countPerTeam) {
+		ensureCapacity(agentCount + countPerTeam * TEAMS.length);
+
+		for (Team team : TEAMS) {
+			for (int i = 0; i < countPerTeam; i++) {
+				final int agent = agentCount++;
+				agentTeam[agent] = (byte) team.ordinal();
+				agentPath[agent] = null;
+				agentLocation[agent] = randomLocation();
+				if (agentLocation[agent] != null) {
+					agentX[agent] = agentLocation[agent].getX();
+					agentY[agent] = agentLocation[agent].getY();
+				}
+			}
+		}
+	}
+
+	public void clearTraffic() {
+		Arrays.fill(agentPath, 0, agentCount, null);
+		Arrays.fill(agentLocation, 0, agentCount, null);
+		agentCount = 0;
+	}
+
+	public void toggleTraffic() {
+		if (agentCount > 0) {
+			clearTraffic();
+		} else {
+			spawnTraffic(TRAFFIC_PER_TEAM);
+		}
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= agentPath.length) return;
+		agentTeam = Arrays.copyOf(agentTeam, capacity);
+		agentPath = Arrays.copyOf(agentPath, capacity);
+		agentLocation = Arrays.copyOf(agentLocation, capacity);
+		agentDistance = Arrays.copyOf(agentDistance, capacity);
+		agentCursor = Arrays.copyOf(agentCursor, capacity);
+		agentX = Arrays.copyOf(agentX, capacity);
+		agentY = Arrays.copyOf(agentY, capacity);
+	}
 
-		List<Path> valid = new ArrayList<>(paths.size());
-		for (Path path : paths) {
-			if ( path.preferred )
-				valid.add(path);
+	private Routable randomLocation() {
+		final int size = travelTimeManager.size();
+		if (size == 0) return null;
+		final Entity e = travelTimeManager.get(MathUtils.random(size - 1));
+		return e.isActive() ? mRoutable.get(e) : null;
+	}
+
+	private void updateAgents(float delta, float unitsPerPixel) {
+
+		for (int i = 0; i < TEAMS.length; i++) {
+			agentStep[i] = delta * TEAMS[i].getAvgSpeed() / unitsPerPixel;
 		}
 
-		return valid.size() > 0 ? valid.get(MathUtils.random(valid.size()-1)) : null;
+		for (int agent = 0; agent < agentCount; agent++) {
+			Path path = agentPath[agent];
+
+			if (path == null) {
+				// pick next leg, or start over somewhere else when stuck.
+				Routable location = agentLocation[agent];
+				path = location != null ? randomPath(location, TEAMS[agentTeam[agent]]) : null;
+				if (path == null) {
+					agentLocation[agent] = randomLocation();
+					continue;
+				}
+				agentPath[agent] = path;
+				agentDistance[agent] = 0;
+				agentCursor[agent] = 0;
+			}
+
+			final float distance = agentDistance[agent] + agentStep[agentTeam[agent]];
+			agentDistance[agent] = distance;
+
+			final int last = path.size() - 1;
+			if (distance >= path.getLength() || last <= 0) {
+				// arrived.
+				agentX[agent] = path.getX(last);
+				agentY[agent] = path.getY(last);
+				agentLocation[agent] = path.destination.isActive() ? mRoutable.getSafe(path.destination.get()) : null;
+				agentPath[agent] = null;
+				continue;
+			}
+
+			final int cursor = advance(path, agentCursor[agent], distance);
+			agentCursor[agent] = cursor;
+
+			// interpolate between passed cell and next cell.
+			final float from = path.getDistance(cursor);
+			final float to = path.getDistance(cursor + 1);
+			final float t = to > from ? (distance - from) / (to - from) : 0;
+			agentX[agent] = path.getX(cursor) + (path.getX(cursor + 1) - path.getX(cursor)) * t;
+			agentY[agent] = path.getY(cursor) + (path.getY(cursor + 1) - path.getY(cursor)) * t;
+		}
+	}
+
+	public int getAgentCount() {
+		return agentCount;
+	}
+
+	public Team getAgentTeam(int agent) {
+		return TEAMS[agentTeam[agent]];
+	}
+
+	/**
+	 * @return agent location in grid cells.
+	 */
+	public float getAgentX(int agent) {
+		return agentX[agent];
+	}
+
+	public float getAgentY(int agent) {
+		return agentY[agent];
 	}
 }
@@ -4,16 +4,26 @@ import com.artemis.Aspect;
 import com.artemis.Entity;
 import com.artemis.annotations.Wire;
 import com.artemis.utils.ImmutableBag;
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.utils.TimeUtils;
 import net.mostlyoriginal.game.api.DelayedEntitySystem;
-import net.mostlyoriginal.game.api.pathfinding.grid.GridGraph;
-import net.mostlyoriginal.game.api.pathfinding.grid.GridNode;
+import net.mostlyoriginal.game.api.RawMapSnapshot;
+import net.mostlyoriginal.game.api.WorkerBatch;
+import net.mostlyoriginal.game.api.WorkerPool;
+import net.mostlyoriginal.game.api.artifact.ArtifactStore;
+import net.mostlyoriginal.game.api.artifact.ContentHash;
+import net.mostlyoriginal.game.api.pathfinding.grid.GridRegion;
+import net.mostlyoriginal.game.api.pathfinding.grid.NavigationGrid;
 import net.mostlyoriginal.game.component.Layer;
 import net.mostlyoriginal.game.component.Team;
-import net.mostlyoriginal.game.component.ui.RenderMask;
+import net.mostlyoriginal.game.manager.CellClassificationManager;
 import net.mostlyoriginal.game.manager.LayerManager;
 import net.mostlyoriginal.game.manager.NavigationGridManager;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 
 /**
@@ -24,119 +34,472 @@ public class NavigationGridCalculationSystem extends DelayedEntitySystem {
 
 	NavigationGridManager navigationGridManager;
 	private LayerManager layerManager;
+	private CellClassificationManager cellClassificationManager;
 
 	private Color tmpCol = new Color();
 
+	// build the grid in row stripes on worker threads, when the backend supports threads.
+	public boolean parallel = true;
+
+	// more stripes than workers, to balance stripes that are mostly blocked.
+	private static final int STRIPES_PER_WORKER = 4;
+
+	// patches are folded into a pending full rebuild.
+	private boolean fullRebuild = true;
+	private GridRegion pendingRegion;
+
+	// work in progress, to resume after being interrupted by a new request.
+	private boolean activeFull;
+	private GridRegion activeRegion;
+
+	// recent full builds, keyed by raw pixels and palette.
+	private final ArtifactStore<GridArtifact> artifacts = new ArtifactStore<>("Navigation grid", 4);
+	private long activeKey;
+	private boolean activeRestored;
+
 	public NavigationGridCalculationSystem() {
 		super(Aspect.getEmpty());
 	}
 
-	Color tmpColor = new Color();
-
-	public static final Color DUCT_COLOR = new Color(236/256f,153/256f,25/256f,1f);
-	public static final Color FLOOR_COLOR = new Color(112/256f,112/256f,112/256f,1f);
+	@Override
+	protected void initialize() {
+		// survive restarts, reopening an unchanged map skips the build.
+		artifacts.setCodec(new GridArtifactCodec());
+	}
 
 	@Override
 	protected long maxDuration() {
 		return 4;
 	}
 
-	public boolean similar(Color c1, Color c2, float tolerance)
-	{
-		return Math.abs(c1.r - c2.r) < tolerance &&
-				Math.abs(c1.g - c2.g) < tolerance &&
-				Math.abs(c1.b - c2.b) < tolerance;
+	/**
+	 * Rebuild the entire grid.
+	 */
+	@Override
+	public void setDirty(boolean dirty) {
+		super.setDirty(dirty);
+		if (dirty) {
+			fullRebuild = true;
+		}
+	}
+
+	/**
+	 * Reclassify only the cells in region, and their direct neighbours.
+	 */
+	public void patch(GridRegion region) {
+		pendingRegion = pendingRegion == null ? new GridRegion(region) : pendingRegion.union(region);
+		super.setDirty(true);
 	}
 
-	private boolean isWalkable(int rawColor, Team team) {
+	@Override
+	protected void collectJobs(ImmutableBag<Entity> entities, LinkedList<Job> jobs) {
 
-		tmpColor.set(rawColor);
+		final RawMapSnapshot raw = layerManager.getRawSnapshot();
 
-		// only aliens can walk over duct colors.
-		if ( similar(tmpColor, DUCT_COLOR,0.25f) ) {
-			return team == Team.ALIEN;
+		if (activeRegion != null) {
+			pendingRegion = pendingRegion == null ? activeRegion : pendingRegion.union(activeRegion);
 		}
 
-		if ( similar(tmpColor, Color.WHITE,0.10f) ) {
-			return false;
+		activeFull = fullRebuild || pendingRegion == null || navigationGridManager.getGrid() == null;
+		if (!activeFull) {
+			// one cell border, neighbour links of surrounding cells change as well.
+			activeRegion = pendingRegion.expand(1).clamp(NavigationGridManager.GRID_WIDTH, NavigationGridManager.GRID_HEIGHT);
+			pendingRegion = null;
+			jobs.add(new PatchNavigationGrid(raw, navigationGridManager.getGrid(), activeRegion));
+			return;
 		}
 
-		return tmpColor.a >= 0.5f;
-	}
+		pendingRegion = null;
+		activeRegion = null;
 
-	@Override
-	protected void collectJobs(ImmutableBag<Entity> entities, LinkedList<Job> jobs) {
+		// same map seen before, reuse its grid.
+		activeKey = ContentHash.hash(raw.contentHash(), cellClassificationManager.getPaletteHash());
+		final GridArtifact artifact = artifacts.get(activeKey);
+		activeRestored = artifact != null;
+		if (activeRestored) {
+			jobs.add(new RestoreNavigationGrid(artifact));
+			return;
+		}
+
+		if (parallel && WorkerPool.isSupported()) {
+			jobs.add(new ParallelRefreshNavigationGrid(raw));
+			return;
+		}
+
+		// one packed grid for all teams, each team job fills in its own passability bit.
+		NavigationGrid grid = new NavigationGrid(NavigationGridManager.GRID_WIDTH, NavigationGridManager.GRID_HEIGHT);
+		navigationGridManager.setGrid(grid);
 
 		for (Team team : Team.values()) {
 
-			Layer navMask = layerManager.getTeamNavLayer(team);
-			navMask.clear();
+			Layer navLayer = layerManager.getTeamNavLayer(team);
+			navLayer.clear();
+
+			final int[] navMask = createNavMask();
+			layerManager.setTeamNavMask(team, navMask);
+
+			jobs.add(new RefreshNavigationGrid(team, navLayer, navMask, raw, grid));
+		}
+	}
+
+	@Override
+	protected void postJobs() {
+		if (activeFull && !isDirty()) {
+			fullRebuild = false;
+			if (!activeRestored) {
+				artifacts.put(activeKey, new GridArtifact(navigationGridManager.getGrid(), layerManager));
+			}
+		}
+		activeRegion = null;
+	}
+
+	private static int[] createNavMask() {
+		final int[] navMask = new int[NavigationGridManager.GRID_WIDTH * NavigationGridManager.GRID_HEIGHT];
+		Arrays.fill(navMask, Color.rgba8888(Color.WHITE));
+		return navMask;
+	}
 
-			GridGraph graph = new GridGraph(NavigationGridManager.GRID_WIDTH, NavigationGridManager.GRID_HEIGHT);
-			navigationGridManager.setNavigationGrid(team, graph);
+	/**
+	 * Packed grid flags for a cell, map borders are never walkable.
+	 */
+	private static int getCellFlags(CellClassificationManager classifier, RawMapSnapshot raw, int x, int y) {
+		int flags = classifier.getNavigationFlags(raw.get(x, y));
+		if (x == 0 || y == 0) {
+			flags &= NavigationGrid.FLAG_DUCT;
+		}
+		return flags;
+	}
 
-			jobs.add(new RefreshNavigationGrid(team, navMask, graph));
+	/**
+	 * Nav mask color of a cell, walkable cells are tinted raw colors drawn over white.
+	 */
+	private static int getNavMaskColor(Color tmpCol, int rawColor, Team team, boolean walkable) {
+		if (!walkable) {
+			return Color.rgba8888(Color.WHITE);
 		}
+
+		tmpCol.set(rawColor);
+
+		float transparency = 0.3f;
+		float r = (tmpCol.r * transparency + team.getBackgroundColor().r * (1 - transparency));
+		float g = (tmpCol.g * transparency + team.getBackgroundColor().g * (1 - transparency));
+		float b = (tmpCol.b * transparency + team.getBackgroundColor().b * (1 - transparency));
+		float a = (tmpCol.a * transparency + team.getBackgroundColor().a * (1 - transparency));
+
+		return Color.rgba8888(r * a + (1 - a), g * a + (1 - a), b * a + (1 - a), 1f);
 	}
 
 	private class RefreshNavigationGrid implements Job {
 		private int x;
 		private Team team;
-		private final Layer navMask;
-		private final Layer rawMapLayer;
-		private final GridGraph graph;
-		private int index;
+		private final Layer navLayer;
+		private final int[] navMask;
+		private final RawMapSnapshot raw;
+		private final NavigationGrid grid;
+		private final int teamMask;
 
-		public RefreshNavigationGrid(Team team, Layer navMask, GridGraph graph) {
+		public RefreshNavigationGrid(Team team, Layer navLayer, int[] navMask, RawMapSnapshot raw, NavigationGrid grid) {
 			this.team = team;
+			this.navLayer = navLayer;
 			this.navMask = navMask;
-			this.rawMapLayer = layerManager.getLayer("RAW", RenderMask.Mask.BASIC);
-			this.graph = graph;
+			this.raw = raw;
+			this.grid = grid;
+			this.teamMask = NavigationGridManager.getTeamMask(team);
 
 			this.x = 0;
-			this.index=0;
 		}
 
 		public void run() {
 
 			if ( x < NavigationGridManager.GRID_WIDTH ) {
 				for (int y = 0; y < NavigationGridManager.GRID_HEIGHT; y++) {
-					boolean isWalkable;
-					int rawColor = rawMapLayer.pixmap.getPixel(x, rawMapLayer.pixmap.getHeight() - y);
-					if (x == 0 || y == 0 || x - 1 == NavigationGridManager.GRID_WIDTH || y - 1 == NavigationGridManager.GRID_HEIGHT)
-						// prevent walking map borders.
-						isWalkable = false;
-					else {
-						// blocked by map mask.
-						isWalkable = isWalkable(rawColor, team);
-					}
+					int flags = getCellFlags(cellClassificationManager, raw, x, y);
 
-					// generate mask based on blockades.
-					tmpCol.set(rawColor);
-					if (isWalkable) {
-						float transparency = 0.3f;
-						tmpCol.r = (tmpCol.r * transparency + team.getBackgroundColor().r * (1 - transparency));
-						tmpCol.g = (tmpCol.g * transparency + team.getBackgroundColor().g * (1 - transparency));
-						tmpCol.b = (tmpCol.b * transparency + team.getBackgroundColor().b * (1 - transparency));
-						tmpCol.a = (tmpCol.a * transparency + team.getBackgroundColor().a * (1 - transparency));
-						navMask.drawPixel(x, navMask.pixmap.getHeight() - y, tmpCol);
+					if ((flags & NavigationGrid.FLAG_DUCT) != 0) {
+						grid.mark(x, y, NavigationGrid.FLAG_DUCT);
 					}
 
-					graph.set(x, y, isWalkable ? new GridNode(graph, x, y, index++) : null);
+					if ((flags & teamMask) != 0) {
+						grid.mark(x, y, teamMask);
+
+						// generate mask based on blockades.
+						final int color = getNavMaskColor(tmpCol, raw.get(x, y), team, true);
+						navMask[y * grid.width + x] = color;
+						navLayer.pixmap.drawPixel(x, navLayer.pixmap.getHeight() - y, color);
+					}
 				}
 
 				x++;
+			}
+		}
+
+		@Override
+		public boolean isCompleted() {
+			return x == NavigationGridManager.GRID_WIDTH;
+		}
+	}
+
+	/**
+	 * Reclassify a region of the active grid in place, and patch the nav masks to match.
+	 */
+	private class PatchNavigationGrid implements Job {
+
+		private final RawMapSnapshot raw;
+		private final NavigationGrid grid;
+		private final GridRegion region;
+		private boolean completed;
+
+		public PatchNavigationGrid(RawMapSnapshot raw, NavigationGrid grid, GridRegion region) {
+			this.raw = raw;
+			this.grid = grid;
+			this.region = region;
+		}
+
+		@Override
+		public void run() {
+			final Team[] teams = Team.values();
+
+			for (int y = region.minY; y <= region.maxY; y++) {
+				for (int x = region.minX; x <= region.maxX; x++) {
+					final int flags = getCellFlags(cellClassificationManager, raw, x, y);
+					grid.set(x, y, flags);
+
+					for (Team team : teams) {
+						final int color = getNavMaskColor(tmpCol, raw.get(x, y), team, (flags & NavigationGridManager.getTeamMask(team)) != 0);
+						layerManager.getTeamNavMask(team)[y * grid.width + x] = color;
 
-				if ( isCompleted() )
-				{
-					graph.bakeNeighbours();
+						final Layer navLayer = layerManager.getTeamNavLayer(team);
+						navLayer.pixmap.drawPixel(x, navLayer.pixmap.getHeight() - y, color);
+					}
 				}
 			}
+
+			for (Team team : teams) {
+				layerManager.getTeamNavLayer(team).invalidateTexture();
+			}
+
+			navigationGridManager.gridPatched(region);
+			completed = true;
 		}
 
 		@Override
 		public boolean isCompleted() {
-			return x == NavigationGridManager.GRID_WIDTH;
+			return completed;
+		}
+	}
+
+	/**
+	 * Build grid and team nav masks in row stripes on the worker pool.
+	 * <p/>
+	 * Workers fill a private grid and pixel buffers, once all stripes are done
+	 * the results are published in one go. Until then the previous grid stays in use.
+	 */
+	private class ParallelRefreshNavigationGrid implements WaitingJob {
+
+		private final RawMapSnapshot raw;
+		private final NavigationGrid grid;
+		private final int[][] navMasks;
+		private WorkerBatch batch;
+		private long start;
+		private boolean completed;
+
+		public ParallelRefreshNavigationGrid(RawMapSnapshot raw) {
+			this.raw = raw;
+			this.grid = new NavigationGrid(NavigationGridManager.GRID_WIDTH, NavigationGridManager.GRID_HEIGHT);
+			this.navMasks = new int[Team.values().length][];
+			for (int i = 0; i < navMasks.length; i++) {
+				navMasks[i] = createNavMask();
+			}
+		}
+
+		@Override
+		public void run() {
+
+			if (batch == null) {
+				start = TimeUtils.nanoTime();
+				final ArrayList<BuildStripe> stripes = new ArrayList<>();
+				final int stripeCount = WorkerPool.getParallelism() * STRIPES_PER_WORKER;
+				final int rows = (NavigationGridManager.GRID_HEIGHT + stripeCount - 1) / stripeCount;
+				for (int y = 0; y < NavigationGridManager.GRID_HEIGHT; y += rows) {
+					stripes.add(new BuildStripe(cellClassificationManager, raw, grid, navMasks, y, Math.min(y + rows, NavigationGridManager.GRID_HEIGHT)));
+				}
+				batch = WorkerPool.submit(stripes);
+				return;
+			}
+
+			if (completed || !batch.isDone()) return;
+			completed = true;
+
+			if (batch.getFailure() != null) {
+				// retry on the render thread.
+				Gdx.app.error("Performance", "Parallel navigation grid build failed, falling back to time sliced build.", batch.getFailure());
+				parallel = false;
+				setDirty(true);
+				return;
+			}
+
+			publish();
+			Gdx.app.debug("Performance", "Built navigation grid in " + (TimeUtils.nanoTime() - start) / 1000000 + "ms on " + WorkerPool.getParallelism() + " workers.");
+		}
+
+		private void publish() {
+			navigationGridManager.setGrid(grid);
+
+			final Team[] teams = Team.values();
+			for (int i = 0; i < teams.length; i++) {
+				layerManager.setTeamNavMask(teams[i], navMasks[i]);
+				layerManager.resetTeamNavLayer(teams[i]);
+			}
+		}
+
+		@Override
+		public boolean isCompleted() {
+			return completed;
+		}
+
+		@Override
+		public boolean isWaiting() {
+			return batch != null && !batch.isDone();
+		}
+	}
+
+	/**
+	 * Copy of a built grid and its team nav masks. Grid and masks are patched in place, so the
+	 * artifact keeps private copies.
+	 */
+	private static class GridArtifact {
+
+		private final byte[] cells;
+		private final int[][] navMasks;
+
+		public GridArtifact(byte[] cells, int[][] navMasks) {
+			this.cells = cells;
+			this.navMasks = navMasks;
+		}
+
+		public GridArtifact(NavigationGrid grid, LayerManager layerManager) {
+			this.cells = Arrays.copyOf(grid.cells, grid.cells.length);
+
+			final Team[] teams = Team.values();
+			this.navMasks = new int[teams.length][];
+			for (int i = 0; i < teams.length; i++) {
+				final int[] navMask = layerManager.getTeamNavMask(teams[i]);
+				navMasks[i] = Arrays.copyOf(navMask, navMask.length);
+			}
+		}
+	}
+
+	private static class GridArtifactCodec implements ArtifactStore.Codec<GridArtifact> {
+
+		@Override
+		public int size(GridArtifact artifact) {
+			int size = 4 + artifact.cells.length + 4;
+			for (int[] navMask : artifact.navMasks) {
+				size += 4 + navMask.length * 4;
+			}
+			return size;
+		}
+
+		@Override
+		public void encode(GridArtifact artifact, ByteBuffer out) {
+			out.putInt(artifact.cells.length);
+			out.put(artifact.cells);
+			out.putInt(artifact.navMasks.length);
+			for (int[] navMask : artifact.navMasks) {
+				out.putInt(navMask.length);
+				out.asIntBuffer().put(navMask);
+				out.position(out.position() + navMask.length * 4);
+			}
+		}
+
+		@Override
+		public GridArtifact decode(ByteBuffer in) {
+			final int size = NavigationGridManager.GRID_WIDTH * NavigationGridManager.GRID_HEIGHT;
+			if (in.getInt() != size) return null;
+			final byte[] cells = new byte[size];
+			in.get(cells);
+
+			if (in.getInt() != Team.values().length) return null;
+			final int[][] navMasks = new int[Team.values().length][];
+			for (int i = 0; i < navMasks.length; i++) {
+				if (in.getInt() != size) return null;
+				navMasks[i] = new int[size];
+				in.asIntBuffer().get(navMasks[i]);
+				in.position(in.position() + size * 4);
+			}
+			return new GridArtifact(cells, navMasks);
+		}
+	}
+
+	/**
+	 * Publish a copy of a stored grid.
+	 */
+	private class RestoreNavigationGrid implements Job {
+
+		private final GridArtifact artifact;
+		private boolean completed;
+
+		public RestoreNavigationGrid(GridArtifact artifact) {
+			this.artifact = artifact;
+		}
+
+		@Override
+		public void run() {
+			final NavigationGrid grid = new NavigationGrid(NavigationGridManager.GRID_WIDTH, NavigationGridManager.GRID_HEIGHT);
+			System.arraycopy(artifact.cells, 0, grid.cells, 0, grid.cells.length);
+			navigationGridManager.setGrid(grid);
+
+			final Team[] teams = Team.values();
+			for (int i = 0; i < teams.length; i++) {
+				layerManager.setTeamNavMask(teams[i], Arrays.copyOf(artifact.navMasks[i], artifact.navMasks[i].length));
+				layerManager.resetTeamNavLayer(teams[i]);
+			}
+			completed = true;
+		}
+
+		@Override
+		public boolean isCompleted() {
+			return completed;
+		}
+	}
+
+	/**
+	 * Classify a range of rows for all teams. Each stripe owns its rows, so no two workers write the same cell.
+	 */
+	private static class BuildStripe implements Runnable {
+
+		private final CellClassificationManager classifier;
+		private final RawMapSnapshot raw;
+		private final NavigationGrid grid;
+		private final int[][] navMasks;
+		private final int fromY;
+		private final int toY;
+
+		public BuildStripe(CellClassificationManager classifier, RawMapSnapshot raw, NavigationGrid grid, int[][] navMasks, int fromY, int toY) {
+			this.classifier = classifier;
+			this.raw = raw;
+			this.grid = grid;
+			this.navMasks = navMasks;
+			this.fromY = fromY;
+			this.toY = toY;
+		}
+
+		@Override
+		public void run() {
+			final Team[] teams = Team.values();
+			final Color color = new Color();
+
+			for (int y = fromY; y < toY; y++) {
+				for (int x = 0; x < grid.width; x++) {
+					final int flags = getCellFlags(classifier, raw, x, y);
+					grid.set(x, y, flags);
+
+					for (int i = 0; i < teams.length; i++) {
+						final boolean walkable = (flags & NavigationGridManager.getTeamMask(teams[i])) != 0;
+						navMasks[i][y * grid.width + x] = getNavMaskColor(color, raw.get(x, y), teams[i], walkable);
+					}
+				}
+			}
 		}
 	}
-}
\ No newline at end of file
+}
@@ -5,19 +5,22 @@ import com.artemis.ComponentMapper;
 import com.artemis.Entity;
 import com.artemis.annotations.Wire;
 import com.artemis.utils.ImmutableBag;
-import com.badlogic.gdx.ai.pfa.*;
-import com.badlogic.gdx.ai.pfa.indexed.DefaultIndexedGraph;
-import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder;
-import com.badlogic.gdx.utils.Array;
 import net.mostlyoriginal.api.component.basic.Pos;
 import net.mostlyoriginal.game.Path;
 import net.mostlyoriginal.game.api.DelayedEntitySystem;
+import net.mostlyoriginal.game.api.pathfinding.AllPairsShortestPaths;
+import net.mostlyoriginal.game.api.artifact.ArtifactStore;
+import net.mostlyoriginal.game.api.artifact.ContentHash;
 import net.mostlyoriginal.game.component.Routable;
 import net.mostlyoriginal.game.component.Team;
 import net.mostlyoriginal.game.manager.LayerManager;
 import net.mostlyoriginal.game.manager.NavigationGridManager;
 import net.mostlyoriginal.game.system.logic.RefreshHandlerSystem;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedList;
 
 /**
@@ -36,6 +39,12 @@ public class PreferredRouteCalculationSystem extends DelayedEntitySystem {
 	private RouteCalculationSystem routeCalculationSystem;
 	private RefreshHandlerSystem refreshHandlerSystem;
 
+	// recent preferences, keyed by routes and ignored routables.
+	private final ArtifactStore<long[]> artifacts = new ArtifactStore<>("Preferred routes", 8);
+	private Entity[] activeOrder;
+	private long activeKey;
+	private boolean activeRestored;
+
 
 	@SuppressWarnings("unchecked")
 	public PreferredRouteCalculationSystem() {
@@ -49,70 +58,196 @@ public class PreferredRouteCalculationSystem extends DelayedEntitySystem {
 
 	@Override
 	protected void postJobs() {
+		if (activeKey != 0 && !activeRestored && !isDirty() && RouteCalculationSystem.isAllActive(activeOrder)) {
+			artifacts.put(activeKey, capturePreferred(activeOrder));
+		}
 		refreshHandlerSystem.purgeAllTransientEntities();
 	}
 
 	@Override
 	protected void initialize() {
 		setPrerequisiteSystems(routeCalculationSystem);
+		artifacts.setCodec(new ArtifactStore.Codec<long[]>() {
+			@Override
+			public int size(long[] artifact) {
+				return 4 + artifact.length * 8;
+			}
+
+			@Override
+			public void encode(long[] artifact, ByteBuffer out) {
+				out.putInt(artifact.length);
+				for (long preferred : artifact) {
+					out.putLong(preferred);
+				}
+			}
+
+			@Override
+			public long[] decode(ByteBuffer in) {
+				final long[] artifact = new long[ArtifactStore.readLength(in, 8)];
+				for (int i = 0; i < artifact.length; i++) {
+					artifact[i] = in.getLong();
+				}
+				return artifact;
+			}
+		});
 	}
 
 	@Override
 	protected void collectJobs(ImmutableBag<Entity> entities, LinkedList<Job> jobs) {
 
-		final Array<Routable> routables = new Array<>(entities.size());
 		for (int a = 0, size = entities.size(); a < size; a++) {
-			// set index, this is required for the pathfinding logic.
 			final Routable routable = mRoutable.get(entities.get(a));
-			routables.add(routable);
-			routable.setIndex(a);
+
+			// routes can survive a refresh, forget previous preferences.
+			for (Team team : Team.values()) {
+				for (Path path : routable.paths.get(team)) {
+					path.preferred = false;
+				}
+			}
+		}
+
+		// same routes seen before, reuse their preferences.
+		activeOrder = routeCalculationSystem.getArtifactOrder();
+		activeKey = getArtifactKey(activeOrder);
+		final long[] artifact = activeKey != 0 ? artifacts.get(activeKey) : null;
+		activeRestored = artifact != null;
+		if (activeRestored) {
+			jobs.add(new RestorePreferredRoutes(artifact, activeOrder));
+			return;
 		}
 
 		for (Team team : Team.values()) {
-			final DefaultIndexedGraph<Routable> graph = new TeamDefaultIndexedGraph(team, routables);
+			jobs.add(new CalculatePreferredRoutes(team, entities));
+		}
+	}
+
+	/**
+	 * Hash of all preference inputs, the routes and routables to ignore.
+	 *
+	 * @return key, or 0 when the routes have no key.
+	 */
+	private long getArtifactKey(Entity[] order) {
+		final long routesKey = routeCalculationSystem.getArtifactKey();
+		if (routesKey == 0 || order == null || !RouteCalculationSystem.isAllActive(order)) return 0;
+
+		long key = ContentHash.hash(ContentHash.EMPTY, routesKey);
+		for (Entity e : order) {
+			key = ContentHash.hash(key, mRoutable.get(e).isIgnoreForPreferred());
+		}
+		return key;
+	}
 
-			for (int a = 0, size = entities.size(); a < size; a++) {
+	/**
+	 * Preferred paths packed as team, source index, destination index and reversed flag, sorted.
+	 */
+	private static long packPreferred(Team team, int source, int destination, boolean reversed) {
+		return ((long) team.ordinal() << 42) | ((long) source << 21) | ((long) destination << 1) | (reversed ? 1 : 0);
+	}
 
-				for (int b = a + 1; b < size; b++) {
-					jobs.add(new CalculatePreferredRoute(team, graph, entities.get(a), entities.get(b)));
+	private long[] capturePreferred(Entity[] order) {
+		final HashMap<Entity, Integer> index = indexOf(order);
+		final ArrayList<Long> preferred = new ArrayList<>();
+		for (int a = 0; a < order.length; a++) {
+			for (Team team : Team.values()) {
+				for (Path path : mRoutable.get(order[a]).paths.get(team)) {
+					if (path.preferred && path.destination.isActive() && index.containsKey(path.destination.get())) {
+						preferred.add(packPreferred(team, a, index.get(path.destination.get()), path.reversed));
+					}
 				}
 			}
 		}
+
+		final long[] packed = new long[preferred.size()];
+		for (int i = 0; i < packed.length; i++) {
+			packed[i] = preferred.get(i);
+		}
+		Arrays.sort(packed);
+		return packed;
 	}
 
-	private class CalculatePreferredRoute implements Job {
-		private Team team;
-		private DefaultIndexedGraph<Routable> graph;
-		private final Entity entityA;
-		private final Entity entityB;
-		private final IndexedAStarPathFinder<Routable> finder;
-		private CalculatePreferredRoute.RoutableHeuristic heuristic = new CalculatePreferredRoute.RoutableHeuristic();
+	private static HashMap<Entity, Integer> indexOf(Entity[] order) {
+		final HashMap<Entity, Integer> index = new HashMap<>();
+		for (int i = 0; i < order.length; i++) {
+			index.put(order[i], i);
+		}
+		return index;
+	}
 
-		public CalculatePreferredRoute(Team team, DefaultIndexedGraph<Routable> graph, Entity entityA, Entity entityB) {
-			this.team = team;
-			this.graph = graph;
-			this.entityA = entityA;
-			this.entityB = entityB;
+	private class RestorePreferredRoutes implements Job {
 
-			finder = new IndexedAStarPathFinder<>(graph);
+		private final long[] artifact;
+		private final Entity[] order;
+
+		public RestorePreferredRoutes(long[] artifact, Entity[] order) {
+			this.artifact = artifact;
+			this.order = order;
 		}
 
 		@Override
 		public void run() {
-			final Routable routableA = mRoutable.get(entityA);
-			final Routable routableB = mRoutable.get(entityB);
+			final HashMap<Entity, Integer> index = indexOf(order);
+			for (int a = 0; a < order.length; a++) {
+				if (!order[a].isActive()) continue;
+				for (Team team : Team.values()) {
+					for (Path path : mRoutable.get(order[a]).paths.get(team)) {
+						final Integer destination = path.destination.isActive() ? index.get(path.destination.get()) : null;
+						if (destination != null) {
+							path.preferred = Arrays.binarySearch(artifact, packPreferred(team, a, destination, path.reversed)) >= 0;
+						}
+					}
+				}
+			}
+		}
+
+		@Override
+		public boolean isCompleted() {
+			return true;
+		}
+	}
 
-			// we don't care about ignored preferred nodes.
-			if (routableA.isIgnoreForPreferred() || routableB.isIgnoreForPreferred()) {
-				return;
+	/**
+	 * Preferred routes of team between all pairs of routables, from one all pairs shortest path pass.
+	 * Routes are weighted by length, long routes get progressively more expensive.
+	 */
+	private class CalculatePreferredRoutes implements Job {
+		private final Team team;
+		private final Routable[] routables;
+
+		public CalculatePreferredRoutes(Team team, ImmutableBag<Entity> entities) {
+			this.team = team;
+			routables = new Routable[entities.size()];
+			for (int i = 0; i < routables.length; i++) {
+				routables[i] = mRoutable.get(entities.get(i));
 			}
+		}
 
-			final GraphPath<Connection<Routable>> path = new DefaultGraphPath<>(8);
+		@Override
+		public void run() {
+			final int size = routables.length;
+			final HashMap<Routable, Integer> index = new HashMap<>();
+			for (int i = 0; i < size; i++) {
+				index.put(routables[i], i);
+			}
 
-          			if ( finder.searchConnectionPath(routableA, routableB, heuristic, path) )
-			{
-				for (Connection<Routable> connection : path) {
-					markPreferred(team, connection.getFromNode(), connection.getToNode());
+			// ignored routables are neither endpoint nor waypoint.
+			final AllPairsShortestPaths graph = new AllPairsShortestPaths(size);
+			for (int a = 0; a < size; a++) {
+				if (routables[a].isIgnoreForPreferred()) continue;
+				for (Path path : routables[a].paths.get(team)) {
+					final Integer b = index.get(getRoutable(path));
+					if (b != null && !routables[b].isIgnoreForPreferred()) {
+						graph.setEdge(a, b, getWeight(path));
+					}
+				}
+			}
+			graph.solve();
+
+			for (int a = 0; a < size; a++) {
+				for (int b = a + 1; b < size; b++) {
+					if (routables[a].isIgnoreForPreferred() || routables[b].isIgnoreForPreferred()) continue;
+					for (int from = a, to = graph.getNext(a, b); to != -1 && from != b; from = to, to = graph.getNext(to, b)) {
+						markPreferred(routables[from], routables[to]);
+					}
 				}
 			}
 		}
@@ -120,40 +255,24 @@ public class PreferredRouteCalculationSystem extends DelayedEntitySystem {
 		/**
 		 * Mark team route from src to dst as the preferred route.
 		 */
-		private void markPreferred(Team team, Routable src, Routable dst) {
+		private void markPreferred(Routable src, Routable dst) {
 			for (Path path : src.paths.get(team)) {
-				// get path destination
-				final Routable routable = getRoutable(path);
-				if (routable == dst) {
+				if (getRoutable(path) == dst) {
 					path.preferred = true;
 				}
 			}
 		}
 
+		private float getWeight(Path path) {
+			float l = path.getPixelLength();
+			float l2 = l * 0.005f;
+			return l * (l2 > 1 ? l2 : 1);
+		}
+
 		@Override
 		public boolean isCompleted() {
 			return true;
 		}
-
-		private class RoutableHeuristic implements Heuristic<Routable> {
-			@Override
-			public float estimate(Routable node1, Routable node2) {
-
-				if ( node1 == node2 ) return 0;
-
-				// get all neighbours for team.
-				for (Path path : node1.paths.get(team)) {
-					Routable routable = getRoutable(path);
-					if (routable == node2) {
-						float l = path.getPixelLength();
-						float l2 = l * 0.005f;
-						return l * (l2 > 1 ? l2 : 1);
-					}
-				}
-
-				return 999999;
-			}
-		}
 	}
 
 	private Routable getRoutable(Path path) {
@@ -161,49 +280,4 @@ public class PreferredRouteCalculationSystem extends DelayedEntitySystem {
 				&& path.destination != null
 				&& path.destination.isActive() ? mRoutable.get(path.destination.get()) : null;
 	}
-
-	private class TeamDefaultIndexedGraph extends DefaultIndexedGraph<Routable> {
-		private Team team;
-
-		public TeamDefaultIndexedGraph(Team team, Array<Routable> nodes) {
-			super(nodes);
-			this.team = team;
-		}
-
-		@Override
-		public Array<Connection<Routable>> getConnections(final Routable fromRoutable) {
-
-			Array<Connection<Routable>> list = new Array<>();
-
-			// we are only interested in team routes that are not ignored as preferred routes.
-			for (Path path : fromRoutable.paths.get(team)) {
-				final Routable toRoutable = getRoutable(path);
-
-				if (toRoutable != null && !toRoutable.isIgnoreForPreferred()) {
-					list.add(new DefaultConnection<Routable>(fromRoutable, toRoutable) {
-						@Override
-						public float getCost () {
-
-							if ( toRoutable == fromRoutable ) return 0;
-
-							// get all neighbours for team.
-							for (Path path : fromRoutable.paths.get(team)) {
-								Routable routable = getRoutable(path);
-								if (routable == toRoutable) {
-									float l = path.getPixelLength();
-									float l2 = l * 0.005f;
-									return l * (l2 > 1 ? l2 : 1);
-								}
-							}
-
-							return 999999;
-
-						}
-					});
-				}
-			}
-
-			return list;
-		}
-	}
 }
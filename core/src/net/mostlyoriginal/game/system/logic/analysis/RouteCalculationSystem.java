@@ -5,28 +5,33 @@ import com.artemis.ComponentMapper;
 import com.artemis.Entity;
 import com.artemis.annotations.Wire;
 import com.artemis.utils.ImmutableBag;
-import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
-import com.badlogic.gdx.ai.pfa.GraphPath;
-import com.badlogic.gdx.ai.pfa.PathFinderRequest;
-import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder;
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.utils.TimeUtils;
 import net.mostlyoriginal.api.component.basic.Bounds;
 import net.mostlyoriginal.api.component.basic.Pos;
 import net.mostlyoriginal.api.utils.reference.SafeEntityReference;
 import net.mostlyoriginal.game.Path;
+import net.mostlyoriginal.game.Route;
 import net.mostlyoriginal.game.api.DelayedEntitySystem;
-import net.mostlyoriginal.game.api.pathfinding.grid.GridGraph;
-import net.mostlyoriginal.game.api.pathfinding.grid.GridNode;
-import net.mostlyoriginal.game.api.pathfinding.grid.GridNodeEuclideanHeuristic;
+import net.mostlyoriginal.game.api.artifact.ArtifactStore;
+import net.mostlyoriginal.game.api.artifact.ContentHash;
+import net.mostlyoriginal.game.api.pathfinding.grid.*;
 import net.mostlyoriginal.game.component.Routable;
 import net.mostlyoriginal.game.component.Team;
 import net.mostlyoriginal.game.manager.LayerManager;
 import net.mostlyoriginal.game.manager.NavigationGridManager;
+import net.mostlyoriginal.game.manager.TravelTimeManager;
 import net.mostlyoriginal.game.system.LayerLoaderSystem;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 
 /**
  * Resolve routes between all nodes.
@@ -40,15 +45,65 @@ public class RouteCalculationSystem extends DelayedEntitySystem {
 	protected ComponentMapper<Routable> mRoutable;
 	protected ComponentMapper<Bounds> mBounds;
 	private NavigationGridManager navigationGridManager;
+	private TravelTimeManager travelTimeManager;
 	private NavigationGridCalculationSystem navigationGridCalculationSystem;
 	private LayerLoaderSystem layerLoaderSystem;
 
+	// flood once per routable to all other routables, instead of a search per pair.
+	public boolean oneToMany = true;
+
+	// heuristic for pairwise searches. Use a WeightedGridHeuristic for quick, slightly suboptimal previews.
+	public GridHeuristic heuristic = new GridOctileHeuristic();
+
+	// log a heuristic comparison on the current routables after each refresh.
+	public boolean benchmark = false;
+
+	// exact cost of unobstructed routes, lower bound for detours.
+	private static final GridOctileHeuristic OCTILE = new GridOctileHeuristic();
+
+	// search time per run, when computing on the render thread.
+	private static final int MAX_RUNTIME_MS = 1000 / 60;
+
+	// compute routes on worker threads, when the backend supports threads.
+	public boolean async = true;
+
+	// finders are reused between refreshes, their search state is quite large.
+	private final LinkedList<GridPathFinder> finders = new LinkedList<>();
+
+	// performance metrics for the active refresh.
+	private long refreshStart;
+	private int routesResolved;
+	private int cellsExpanded;
+
+	// repairs are folded into a pending full refresh.
+	private boolean fullRefresh = true;
+	private boolean activeFull;
+
+	// routables moved since the last refresh, only their routes are resolved again.
+	private HashSet<Entity> movedEntities = new HashSet<>();
+	private HashSet<Entity> activeMovedEntities = new HashSet<>();
+
+	// grid version the current routes were resolved against.
+	private int activeGridVersion;
+	private int routedGridVersion = -1;
+
+	// recent route sets, keyed by grid and routable cells.
+	private final ArtifactStore<RouteArtifact> artifacts = new ArtifactStore<>("Routes", 8);
+	private Entity[] activeOrder;
+	private long activeKey;
+	private boolean activeRestored;
+	private long routesKey;
 
 	@SuppressWarnings("unchecked")
 	public RouteCalculationSystem() {
 		super(Aspect.getAspectForAll(Routable.class, Pos.class));
 	}
 
+	@Override
+	protected boolean async() {
+		return async;
+	}
+
 	@Override
 	protected boolean prerequisitesMet() {
 		return super.prerequisitesMet() && layerLoaderSystem.processed;
@@ -59,143 +114,568 @@ public class RouteCalculationSystem extends DelayedEntitySystem {
 
 		setPrerequisiteSystems(navigationGridCalculationSystem);
 
-		//create a finder either using the default options
+		// survive restarts, reopening an unchanged map and layout skips all searches.
+		artifacts.setCodec(new RouteArtifactCodec());
+	}
+
+	/**
+	 * Resolve all routes.
+	 */
+	@Override
+	public void setDirty(boolean dirty) {
+		super.setDirty(dirty);
+		if (dirty) {
+			fullRefresh = true;
+		}
+	}
+
+	/**
+	 * Only resolve routes that might be affected by navigation grid changes since the last refresh.
+	 * Routables are expected to be unchanged, except those reported by {@link #moved(Entity)}.
+	 */
+	public void repair() {
+		super.setDirty(true);
+	}
+
+	/**
+	 * Only resolve the routes from and to a moved or placed routable, keeping all other routes.
+	 */
+	public void moved(Entity e) {
+		movedEntities.add(e);
+		super.setDirty(true);
 	}
 
 	@Override
 	protected void collectJobs(ImmutableBag<Entity> entities, LinkedList<Job> jobs) {
 
-		// clear existing routes.
-		for (int i = 0, s = entities.size(); i < s; i++) {
-			for (Team team : Team.values()) {
-				mRoutable.get(entities.get(i)).paths.get(team).clear();
+		refreshStart = TimeUtils.millis();
+		routesResolved = 0;
+		cellsExpanded = 0;
+		activeGridVersion = navigationGridManager.getVersion();
+
+		// moves of an interrupted refresh still need their routes.
+		movedEntities.addAll(activeMovedEntities);
+		activeMovedEntities.clear();
+
+		// same grid and routable layout seen before, reuse its routes.
+		activeOrder = sortByCell(entities);
+		activeKey = getArtifactKey(activeOrder);
+		routesKey = 0;
+		final RouteArtifact artifact = artifacts.get(activeKey);
+		activeRestored = artifact != null;
+		if (activeRestored) {
+			activeFull = true;
+			movedEntities.clear();
+			clearRoutes(entities);
+			jobs.add(new RestoreRoutesJob(artifact, activeOrder));
+			jobs.add(new SortRoutesJob());
+			return;
+		}
+
+		GridRegion changed = null;
+		activeFull = fullRefresh || routedGridVersion == -1;
+		if (!activeFull) {
+			changed = navigationGridManager.getChangedRegion(routedGridVersion);
+			if (changed == null) {
+				// grid changes no longer traceable.
+				activeFull = true;
+			} else if (changed.isEmpty()) {
+				changed = null;
 			}
 		}
 
+		if (!activeFull) {
+			activeMovedEntities.addAll(movedEntities);
+			movedEntities.clear();
+			collectPartialJobs(entities, changed, activeMovedEntities, jobs);
+			return;
+		}
+
+		movedEntities.clear();
+		clearRoutes(entities);
+
+		// snapshot, the entity bag can change while jobs are pending.
+		final Entity[] routables = new Entity[entities.size()];
+		for (int i = 0; i < routables.length; i++) {
+			routables[i] = entities.get(i);
+		}
+
 		for (Team team : Team.values()) {
 			int size = entities.size();
 			GridGraph graph = navigationGridManager.getNavigationGrid(team);
-			IndexedAStarPathFinder<GridNode> finder = new IndexedAStarPathFinder<GridNode>(graph);
 			for (int a = 0; a < size; a++) {
+				if (oneToMany) {
+					// last routable has no remaining targets, all its routes have been resolved by then.
+					if (a + 1 < size) {
+						jobs.add(new FloodRoutesJob(graph, routables[a], Arrays.copyOfRange(routables, a + 1, size), team));
+					}
+				} else {
+					for (int b = a + 1; b < size; b++) {
+						jobs.add(new resolveRouteJob(graph, routables[a], routables[b], team));
+					}
+				}
+			}
+		}
+
+		jobs.add(new SortRoutesJob());
+	}
+
+	private void clearRoutes(ImmutableBag<Entity> entities) {
+		for (int i = 0, s = entities.size(); i < s; i++) {
+			for (Team team : Team.values()) {
+				mRoutable.get(entities.get(i)).paths.get(team).clear();
+			}
+		}
+	}
+
+	/**
+	 * Routables ordered by grid cell, so equal layouts give the same order regardless of entity order.
+	 */
+	private Entity[] sortByCell(ImmutableBag<Entity> entities) {
+		final GridGraph graph = navigationGridManager.getNavigationGrid(Team.values()[0]);
+		final Entity[] sorted = new Entity[entities.size()];
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] = entities.get(i);
+			updateCell(sorted[i], graph);
+		}
+		Arrays.sort(sorted, new Comparator<Entity>() {
+			@Override
+			public int compare(Entity a, Entity b) {
+				final Routable ra = mRoutable.get(a);
+				final Routable rb = mRoutable.get(b);
+				return ra.getY() != rb.getY() ? ra.getY() - rb.getY() : ra.getX() - rb.getX();
+			}
+		});
+		return sorted;
+	}
+
+	/**
+	 * Hash of all route inputs, grid cells, routable cells and search heuristic.
+	 */
+	private long getArtifactKey(Entity[] order) {
+		long key = ContentHash.hash(ContentHash.EMPTY, navigationGridManager.getContentHash());
+		key = ContentHash.hash(key, heuristic.contentHash());
+		key = ContentHash.hash(key, order.length);
+		for (Entity e : order) {
+			final Routable routable = mRoutable.get(e);
+			key = ContentHash.hash(ContentHash.hash(key, routable.getX()), routable.getY());
+		}
+		return key;
+	}
+
+	static boolean isAllActive(Entity[] order) {
+		for (Entity e : order) {
+			if (!e.isActive()) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return key of the current routes, 0 while routes are being resolved.
+	 */
+	public long getArtifactKey() {
+		return routesKey;
+	}
+
+	/**
+	 * @return routables in the order used by route artifacts.
+	 */
+	public Entity[] getArtifactOrder() {
+		return activeOrder;
+	}
+
+	/**
+	 * Drop routes that might be affected by changed cells or moved routables, and resolve them again.
+	 * <p/>
+	 * A route is affected when it passes through the changed region, or when a detour
+	 * through the region could be shorter. All routes from and to moved routables are affected.
+	 * Pairs without a route are retried after grid changes.
+	 *
+	 * @param changed changed cells, or null if the grid is unchanged.
+	 */
+	private void collectPartialJobs(ImmutableBag<Entity> entities, GridRegion changed, HashSet<Entity> moved, LinkedList<Job> jobs) {
+
+		int repaired = 0;
+
+		for (Entity e : moved) {
+			if (e.isActive() && mRoutable.has(e)) {
+				dropRoutes(e);
+			}
+		}
+
+		for (Team team : Team.values()) {
+			final GridGraph graph = navigationGridManager.getNavigationGrid(team);
+
+			for (int a = 0, size = entities.size(); a < size; a++) {
+				final Entity source = entities.get(a);
+				final List<Path> paths = mRoutable.get(source).paths.get(team);
+				final ArrayList<Entity> targets = new ArrayList<>();
+
+				// routes are owned by the source, the reversed route is stored on the destination.
+				final HashSet<Entity> routed = new HashSet<>();
+				for (Path path : paths) {
+					if (path.destination.isActive()) {
+						routed.add(path.destination.get());
+					}
+				}
+
+				for (int i = paths.size() - 1; i >= 0; i--) {
+					final Path path = paths.get(i);
+					if (!path.reversed && path.destination.isActive() && changed != null && isAffected(path, changed)) {
+						final Entity target = path.destination.get();
+						paths.remove(i);
+						removeReversed(target, source, team);
+						targets.add(target);
+					}
+				}
+
 				for (int b = a + 1; b < size; b++) {
-					jobs.add(new resolveRouteJob(finder, graph, entities.get(a), entities.get(b), team));
+					final Entity target = entities.get(b);
+					if (!routed.contains(target) && (changed != null || moved.contains(source) || moved.contains(target))) {
+						targets.add(target);
+					}
+				}
+
+				if (!targets.isEmpty()) {
+					repaired += targets.size();
+					jobs.add(new FloodRoutesJob(graph, source, targets.toArray(new Entity[targets.size()]), team));
 				}
 			}
 		}
 
+		Gdx.app.debug("Performance", "Repairing " + repaired + " routes affected by grid change " + changed + " and " + moved.size() + " moved routables.");
+
 		jobs.add(new SortRoutesJob());
 	}
 
+	/**
+	 * @return true if route might change due to changed cells.
+	 */
+	private boolean isAffected(Path path, GridRegion changed) {
+		final int size = path.size();
+		if (size == 0) return true;
+
+		for (int i = 0; i < size; i++) {
+			if (changed.contains(path.getX(i), path.getY(i))) {
+				return true;
+			}
+		}
+
+		// lower bound of a detour through the changed region.
+		return distanceToRegion(path.getX(0), path.getY(0), changed) + distanceToRegion(path.getX(size - 1), path.getY(size - 1), changed) < path.cost;
+	}
+
+	private float distanceToRegion(int cellX, int cellY, GridRegion region) {
+		final int x = Math.max(region.minX, Math.min(cellX, region.maxX));
+		final int y = Math.max(region.minY, Math.min(cellY, region.maxY));
+		return OCTILE.estimate(cellX, cellY, x, y);
+	}
 
 	/**
-	 * Job to resolve route between two entities.
+	 * Remove all routes from and to e.
+	 */
+	private void dropRoutes(Entity e) {
+		for (Team team : Team.values()) {
+			final List<Path> paths = mRoutable.get(e).paths.get(team);
+			for (Path path : paths) {
+				if (path.destination.isActive()) {
+					final List<Path> otherPaths = mRoutable.get(path.destination.get()).paths.get(team);
+					for (int i = otherPaths.size() - 1; i >= 0; i--) {
+						final Path other = otherPaths.get(i);
+						if (other.destination.isActive() && other.destination.get() == e) {
+							otherPaths.remove(i);
+						}
+					}
+				}
+			}
+			paths.clear();
+		}
+	}
+
+	private void removeReversed(Entity owner, Entity destination, Team team) {
+		final List<Path> paths = mRoutable.get(owner).paths.get(team);
+		for (int i = paths.size() - 1; i >= 0; i--) {
+			final Path path = paths.get(i);
+			if (path.reversed && path.destination.isActive() && path.destination.get() == destination) {
+				paths.remove(i);
+			}
+		}
+	}
+
+	/**
+	 * Borrow a finder for graph, return it with {@link #releaseFinder(GridPathFinder)}.
+	 * Safe to call from worker threads.
+	 */
+	private GridPathFinder acquireFinder(GridGraph graph) {
+		GridPathFinder finder;
+		synchronized (finders) {
+			finder = finders.poll();
+		}
+		if (finder == null || finder.width != graph.width || finder.height != graph.height) {
+			finder = new GridPathFinder(graph.width, graph.height);
+		}
+		finder.setHeuristic(heuristic);
+		return finder;
+	}
+
+	private void releaseFinder(GridPathFinder finder) {
+		synchronized (finders) {
+			finders.add(finder);
+		}
+	}
+
+	/**
+	 * Resolve and store the grid cell of a routable entity.
+	 *
+	 * @return cell index in the navigation grid.
 	 */
-	private class resolveRouteJob implements Job {
+	private int updateCell(Entity e, GridGraph graph) {
+		// offset to center on the image, and convert to pathing space.
+		// @todo cleanup the space difference.
+		final Pos pos = mPos.get(e);
+		final Bounds bounds = mBounds.get(e);
 
-		public static final int MAX_RUNTIME_MS = 1000 / 60;
+		int x = (int) (pos.x + bounds.cx()) / LayerManager.CELL_SIZE;
+		int y = (int) (pos.y + bounds.cy()) / LayerManager.CELL_SIZE;
 
-		private IndexedAStarPathFinder<GridNode> finder;
-		private GridGraph graph;
+		final Routable routable = mRoutable.get(e);
+		routable.setX(x);
+		routable.setY(y);
+
+		return y * graph.width + x;
+	}
+
+	/**
+	 * Store a found route on both ends.
+	 */
+	private void addRoute(int[] resultPath, float cost, GridGraph graph, Entity a, Entity b, Team team) {
+
+		// geometry is stored once, both directions are views.
+		final Route route = new Route(resultPath, graph.width);
+		routesResolved++;
+
+		final Path toDestination = new Path(new SafeEntityReference(b), route, team, false);
+		final Path toSource = new Path(new SafeEntityReference(a), route, team, true);
+		toDestination.cost = cost;
+		toSource.cost = cost;
+
+		mRoutable.get(a).paths.get(team).add(toDestination);
+		mRoutable.get(b).paths.get(team).add(toSource);
+	}
+
+	@Override
+	protected void postJobs() {
+		Gdx.app.debug("Performance", "Resolved " + routesResolved + " routes in " + (TimeUtils.millis() - refreshStart) + "ms, expanded " + cellsExpanded + " cells.");
+
+		routedGridVersion = activeGridVersion;
+		activeMovedEntities.clear();
+		if (activeFull && !isDirty()) {
+			fullRefresh = false;
+		}
+
+		if (!isDirty()) {
+			travelTimeManager.rebuild(getActives());
+			// routables deleted while resolving, leave them to the pending refresh.
+			if (!activeRestored && isAllActive(activeOrder)) {
+				artifacts.put(activeKey, new RouteArtifact(activeOrder));
+			}
+			routesKey = activeKey;
+		}
+
+		if (benchmark) {
+			benchmark();
+		}
+	}
+
+	/**
+	 * Compare the legacy unscaled heuristic against octile and weighted octile on the current routables,
+	 * and on a fixed synthetic grid.
+	 */
+	private void benchmark() {
+		final ImmutableBag<Entity> actives = getActives();
+		final int[] cells = new int[actives.size()];
+
+		for (Team team : Team.values()) {
+			final GridGraph graph = navigationGridManager.getNavigationGrid(team);
+			for (int i = 0, s = actives.size(); i < s; i++) {
+				final Routable routable = mRoutable.get(actives.get(i));
+				cells[i] = routable.getY() * graph.width + routable.getX();
+			}
+
+			final GridPathFinder finder = acquireFinder(graph);
+			new GridPathFinderBenchmark(finder).run(team.name(), graph, cells, actives.size(),
+					new GridNodeEuclideanHeuristic(1f),
+					new GridOctileHeuristic(),
+					new WeightedGridHeuristic(new GridOctileHeuristic(), 1.5f));
+			releaseFinder(finder);
+		}
+
+		new GridPathFinderBenchmark(new GridPathFinder(NavigationGridManager.GRID_WIDTH, NavigationGridManager.GRID_HEIGHT))
+				.runSynthetic(NavigationGridManager.GRID_WIDTH, NavigationGridManager.GRID_HEIGHT, 10, 1L,
+						new GridNodeEuclideanHeuristic(1f),
+						new GridOctileHeuristic(),
+						new WeightedGridHeuristic(new GridOctileHeuristic(), 1.5f));
+	}
+
+
+	/**
+	 * Job to resolve route between two entities.
+	 */
+	private class resolveRouteJob extends AsyncJob {
+
+		private final GridGraph graph;
 		private final Entity a;
 		private final Entity b;
 		private final Team team;
-		private PathFinderRequest<GridNode> request;
-		private boolean finished;
-
-		public resolveRouteJob(IndexedAStarPathFinder<GridNode> finder, GridGraph graph, Entity a, Entity b, Team team) {
-			this.finder = finder;
+		private final int cellA;
+		private final int cellB;
+		private GridPathFinder finder;
+		private int[] path;
+		private float cost;
+		private int expanded;
+
+		public resolveRouteJob(GridGraph graph, Entity a, Entity b, Team team) {
 			this.graph = graph;
 			this.a = a;
 			this.b = b;
 			this.team = team;
+			this.cellA = updateCell(a, graph);
+			this.cellB = updateCell(b, graph);
 		}
 
 		@Override
-		public void run() {
-
-			if (!finished) {
+		protected boolean compute(long maxNanos) {
 
-				if (request == null) {
-
-					if (!a.isActive() || !b.isActive())
-					{
-						finished=true;
-						return;
-					}
+			if (finder == null) {
+				finder = acquireFinder(graph);
+				if (!finder.begin(graph, cellA % graph.width, cellA / graph.width, cellB % graph.width, cellB / graph.width)) {
+					return done();
+				}
+			}
 
-					// offset to center on the image, and convert to pathing space.
-					// @todo cleanup the space difference.
-					final Pos posA = mPos.get(a);
-					final Pos posB = mPos.get(b);
+			if (!finder.search(maxNanos)) return false;
 
-					Bounds boundsA = mBounds.get(a);
-					Bounds boundsB = mBounds.get(b);
+			expanded = finder.expanded;
+			if (finder.isFound()) {
+				path = finder.getPath();
+				cost = finder.getCost();
+			}
+			return done();
+		}
 
-					int aX = (int) (posA.x + boundsA.cx()) / LayerManager.CELL_SIZE;
-					int aY = (int) (posA.y + boundsA.cy()) / LayerManager.CELL_SIZE;
-					final GridNode cellA = graph.get(aX, aY);
+		private boolean done() {
+			releaseFinder(finder);
+			finder = null;
+			return true;
+		}
 
-					int bX = (int) (posB.x + boundsB.cx()) / LayerManager.CELL_SIZE;
-					int bY = (int) (posB.y + boundsB.cy()) / LayerManager.CELL_SIZE;
-					final GridNode cellB = graph.get(bX, bY);
+		@Override
+		protected long sliceMillis() {
+			return MAX_RUNTIME_MS;
+		}
 
-					entityA().setX(aX);
-					entityA().setY(aY);
-					entityB().setX(bX);
-					entityB().setY(bY);
+		@Override
+		protected void cancelled() {
+			if (finder != null) {
+				releaseFinder(finder);
+				finder = null;
+			}
+		}
 
-					if ( cellA == null || cellB == null )
-					{
-						finished=true;
-						return;
-					}
+		@Override
+		protected void apply() {
+			cellsExpanded += expanded;
+			if (path != null && a.isActive() && b.isActive()) {
+				addRoute(path, cost, graph, a, b, team);
+			}
+		}
+	}
 
-					request = new PathFinderRequest<GridNode>(cellA, cellB, new GridNodeEuclideanHeuristic(), new DefaultGraphPath<GridNode>(128));
-					request.changeStatus(PathFinderRequest.SEARCH_INITIALIZED);
-				}
+	/**
+	 * Job to resolve routes from one entity to a set of target entities, in a single search.
+	 */
+	private class FloodRoutesJob extends AsyncJob {
 
-				if ( finder.search(request, TimeUtils.millisToNanos(MAX_RUNTIME_MS))) {
-					finished = true;
-					if (request.pathFound) {
-						generatePath(request.resultPath);
-						request = null;
-					}
-				}
+		private final GridGraph graph;
+		private final Entity source;
+		private final Entity[] targets;
+		private final Team team;
+		private final int sourceCell;
+		private final int[] targetCells;
+		private GridPathFinder finder;
+		private int[][] paths;
+		private float[] costs;
+		private int expanded;
+
+		public FloodRoutesJob(GridGraph graph, Entity source, Entity[] targets, Team team) {
+			this.graph = graph;
+			this.source = source;
+			this.targets = targets;
+			this.team = team;
 
-				if ( request != null ) request.statusChanged = false;
+			// snapshot cells, compute might run on a worker.
+			this.sourceCell = updateCell(source, graph);
+			this.targetCells = new int[targets.length];
+			for (int b = 0; b < targets.length; b++) {
+				targetCells[b] = updateCell(targets[b], graph);
 			}
 		}
 
-		private void generatePath(GraphPath<GridNode> resultPath) {
+		@Override
+		protected boolean compute(long maxNanos) {
 
-			// @TODO replace legacy usage of GridCell.
-			final LinkedList<GridNode> cells = new LinkedList<>();
-			for (Object node : resultPath) {
-				cells.add(new GridNode(((GridNode) node).x, ((GridNode) node).y));
+			if (finder == null) {
+				finder = acquireFinder(graph);
+				if (!finder.beginFlood(graph, sourceCell % graph.width, sourceCell / graph.width, targetCells, targetCells.length)) {
+					return done();
+				}
 			}
-			ArrayList<GridNode> reversedCells = new ArrayList<>(cells);
-			Collections.reverse(reversedCells);
 
-			final Path toDestination = new Path(new SafeEntityReference(b), cells, team, false);
-			final Path toSource = new Path(new SafeEntityReference(a), reversedCells, team, true);
+			if (!finder.search(maxNanos)) return false;
 
-			entityA().paths.get(team).add(toDestination);
-			entityB().paths.get(team).add(toSource);
+			expanded = finder.expanded;
+			paths = new int[targets.length][];
+			costs = new float[targets.length];
+			for (int b = 0; b < targets.length; b++) {
+				final int cell = targetCells[b];
+				if (finder.isSettled(cell)) {
+					paths[b] = finder.getPath(cell);
+					costs[b] = finder.getCost(cell);
+				}
+			}
+			return done();
 		}
 
-		private Routable entityB() {
-			return mRoutable.get(b);
+		private boolean done() {
+			releaseFinder(finder);
+			finder = null;
+			return true;
 		}
 
-		private Routable entityA() {
-			return mRoutable.get(a);
+		@Override
+		protected long sliceMillis() {
+			return MAX_RUNTIME_MS;
 		}
 
 		@Override
-		public boolean isCompleted() {
-			return finished;
+		protected void cancelled() {
+			if (finder != null) {
+				releaseFinder(finder);
+				finder = null;
+			}
 		}
 
+		@Override
+		protected void apply() {
+			cellsExpanded += expanded;
+			if (paths == null || !source.isActive()) return;
+
+			for (int b = 0; b < targets.length; b++) {
+				if (paths[b] != null && targets[b].isActive()) {
+					addRoute(paths[b], costs[b], graph, source, targets[b], team);
+				}
+			}
+		}
 	}
 
 
@@ -205,6 +685,153 @@ public class RouteCalculationSystem extends DelayedEntitySystem {
 		return 0;
 	}
 
+	/**
+	 * Forward routes between routables, by index in artifact order. Reversed routes are derived on restore.
+	 */
+	private class RouteArtifact {
+
+		private final int[] sources;
+		private final int[] targets;
+		private final Team[] teams;
+		private final int[][] cells;
+		private final float[] costs;
+
+		public RouteArtifact(int[] sources, int[] targets, Team[] teams, int[][] cells, float[] costs) {
+			this.sources = sources;
+			this.targets = targets;
+			this.teams = teams;
+			this.cells = cells;
+			this.costs = costs;
+		}
+
+		public RouteArtifact(Entity[] order) {
+			final HashMap<Entity, Integer> index = new HashMap<>();
+			for (int i = 0; i < order.length; i++) {
+				index.put(order[i], i);
+			}
+
+			final ArrayList<Path> routes = new ArrayList<>();
+			final ArrayList<Integer> routeSources = new ArrayList<>();
+			for (int a = 0; a < order.length; a++) {
+				for (Team team : Team.values()) {
+					for (Path path : mRoutable.get(order[a]).paths.get(team)) {
+						if (!path.reversed && path.destination.isActive() && index.containsKey(path.destination.get())) {
+							routes.add(path);
+							routeSources.add(a);
+						}
+					}
+				}
+			}
+
+			sources = new int[routes.size()];
+			targets = new int[routes.size()];
+			teams = new Team[routes.size()];
+			cells = new int[routes.size()][];
+			costs = new float[routes.size()];
+			for (int i = 0; i < sources.length; i++) {
+				final Path path = routes.get(i);
+				sources[i] = routeSources.get(i);
+				targets[i] = index.get(path.destination.get());
+				teams[i] = path.team;
+				costs[i] = path.cost;
+				cells[i] = new int[path.size()];
+				for (int c = 0; c < cells[i].length; c++) {
+					cells[i][c] = path.getCell(c);
+				}
+			}
+		}
+	}
+
+	private class RouteArtifactCodec implements ArtifactStore.Codec<RouteArtifact> {
+
+		// source, target, team, cost and cell count.
+		private static final int ROUTE_HEADER_SIZE = 4 + 4 + 1 + 4 + 4;
+
+		@Override
+		public int size(RouteArtifact artifact) {
+			int size = 4;
+			for (int[] path : artifact.cells) {
+				size += ROUTE_HEADER_SIZE + path.length * 4;
+			}
+			return size;
+		}
+
+		@Override
+		public void encode(RouteArtifact artifact, ByteBuffer out) {
+			out.putInt(artifact.sources.length);
+			for (int i = 0; i < artifact.sources.length; i++) {
+				out.putInt(artifact.sources[i]);
+				out.putInt(artifact.targets[i]);
+				out.put((byte) artifact.teams[i].ordinal());
+				out.putFloat(artifact.costs[i]);
+				out.putInt(artifact.cells[i].length);
+				out.asIntBuffer().put(artifact.cells[i]);
+				out.position(out.position() + artifact.cells[i].length * 4);
+			}
+		}
+
+		@Override
+		public RouteArtifact decode(ByteBuffer in) {
+			final Team[] values = Team.values();
+			final int gridSize = NavigationGridManager.GRID_WIDTH * NavigationGridManager.GRID_HEIGHT;
+			final int count = ArtifactStore.readLength(in, ROUTE_HEADER_SIZE);
+			final int[] sources = new int[count];
+			final int[] targets = new int[count];
+			final Team[] teams = new Team[count];
+			final int[][] cells = new int[count][];
+			final float[] costs = new float[count];
+			for (int i = 0; i < count; i++) {
+				sources[i] = in.getInt();
+				targets[i] = in.getInt();
+				if (sources[i] < 0 || targets[i] < 0) return null;
+				final int team = in.get();
+				if (team < 0 || team >= values.length) return null;
+				teams[i] = values[team];
+				costs[i] = in.getFloat();
+				cells[i] = new int[ArtifactStore.readLength(in, 4)];
+				in.asIntBuffer().get(cells[i]);
+				in.position(in.position() + cells[i].length * 4);
+				for (int cell : cells[i]) {
+					if (cell < 0 || cell >= gridSize) return null;
+				}
+			}
+			return new RouteArtifact(sources, targets, teams, cells, costs);
+		}
+	}
+
+	private class RestoreRoutesJob implements Job {
+
+		private final RouteArtifact artifact;
+		private final Entity[] order;
+
+		public RestoreRoutesJob(RouteArtifact artifact, Entity[] order) {
+			this.artifact = artifact;
+			this.order = order;
+		}
+
+		@Override
+		public void run() {
+			for (int i = 0; i < artifact.sources.length; i++) {
+				if (!isIndex(artifact.sources[i]) || !isIndex(artifact.targets[i])) continue;
+				final Entity a = order[artifact.sources[i]];
+				final Entity b = order[artifact.targets[i]];
+				if (a.isActive() && b.isActive()) {
+					final Team team = artifact.teams[i];
+					addRoute(artifact.cells[i], artifact.costs[i], navigationGridManager.getNavigationGrid(team), a, b, team);
+				}
+			}
+		}
+
+		private boolean isIndex(int index) {
+			return index >= 0 && index < order.length;
+		}
+
+		@Override
+		public boolean isCompleted() {
+			return true;
+		}
+	}
+
 	private class SortRoutesJob implements Job {
 		@Override
 		public void run() {
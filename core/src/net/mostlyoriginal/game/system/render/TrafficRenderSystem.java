@@ -0,0 +1,66 @@
+package net.mostlyoriginal.game.system.render;
+
+import com.artemis.annotations.Wire;
+import com.artemis.systems.VoidEntitySystem;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import net.mostlyoriginal.api.system.camera.CameraSystem;
+import net.mostlyoriginal.game.component.Team;
+import net.mostlyoriginal.game.manager.LayerManager;
+import net.mostlyoriginal.game.system.logic.TravelerSystem;
+
+/**
+ * Render bulk traffic agents as small dots in their team color.
+ *
+ * @author Daan van Yperen
+ */
+@Wire
+public class TrafficRenderSystem extends VoidEntitySystem {
+
+	private static final float AGENT_SIZE = 3;
+
+	protected CameraSystem cameraSystem;
+	protected TravelerSystem travelerSystem;
+
+	protected SpriteBatch batch;
+	private Texture dot;
+
+	@Override
+	protected void initialize() {
+		batch = new SpriteBatch(1000);
+		Pixmap pixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+		pixmap.setColor(Color.WHITE);
+		pixmap.fill();
+		dot = new Texture(pixmap);
+		pixmap.dispose();
+	}
+
+	@Override
+	protected boolean checkProcessing() {
+		return travelerSystem.getAgentCount() > 0;
+	}
+
+	@Override
+	protected void processSystem() {
+		batch.setProjectionMatrix(cameraSystem.camera.combined);
+		batch.begin();
+
+		Team color = null;
+		for (int i = 0, s = travelerSystem.getAgentCount(); i < s; i++) {
+			final Team team = travelerSystem.getAgentTeam(i);
+			if (team != color) {
+				color = team;
+				batch.setColor(team.getPathColor());
+			}
+			batch.draw(dot,
+					travelerSystem.getAgentX(i) * LayerManager.CELL_SIZE - AGENT_SIZE / 2,
+					travelerSystem.getAgentY(i) * LayerManager.CELL_SIZE - AGENT_SIZE / 2,
+					AGENT_SIZE, AGENT_SIZE);
+		}
+
+		batch.end();
+		batch.setColor(Color.WHITE);
+	}
+}
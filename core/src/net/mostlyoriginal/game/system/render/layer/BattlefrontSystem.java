@@ -0,0 +1,260 @@
+package net.mostlyoriginal.game.system.render.layer;
+
+import com.artemis.Aspect;
+import com.artemis.Entity;
+import com.artemis.annotations.Wire;
+import com.artemis.utils.ImmutableBag;
+import com.badlogic.gdx.graphics.Color;
+import net.mostlyoriginal.api.component.basic.Pos;
+import net.mostlyoriginal.game.api.DelayedEntitySystem;
+import net.mostlyoriginal.game.api.pathfinding.grid.ArrivalField;
+import net.mostlyoriginal.game.api.pathfinding.grid.DistanceField;
+import net.mostlyoriginal.game.component.Layer;
+import net.mostlyoriginal.game.component.Routable;
+import net.mostlyoriginal.game.component.Team;
+import net.mostlyoriginal.game.component.buildings.Techpoint;
+import net.mostlyoriginal.game.component.ui.RenderMask;
+import net.mostlyoriginal.game.manager.ArrivalFieldManager;
+import net.mostlyoriginal.game.manager.LayerManager;
+import net.mostlyoriginal.game.system.logic.RenderMaskHandlerSystem;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Trace the battlefront, where aliens and marines arrive at the same time
+ * from their nearest owned techpoint.
+ * <p/>
+ * Reads the uncapped nearest techpoint fields shared with isochrones, so the front also
+ * runs where both teams need longer than the presence radius. Extracting the front is one
+ * pass over the grid. The front is traced into polylines and drawn over the presence layer.
+ *
+ * @author Daan van Yperen
+ */
+@Wire(injectInherited = true)
+public class BattlefrontSystem extends DelayedEntitySystem {
+
+	// cells closer to equal arrival than this count as front, filters out jumps at walls.
+	public static final float TOLERANCE_SECONDS = 1f;
+	// shorter polylines are noise.
+	public static final int MIN_POLYLINE_CELLS = 4;
+
+	private static final Color FRONT_COLOR = new Color(0.5f, 0f, 0.5f, 1f);
+	private static final Color SHADOW_COLOR = new Color(0f, 0f, 0f, 0.35f);
+
+	private static final int[] X_OFF = {0, 1, 0, -1, 1, 1, -1, -1};
+	private static final int[] Y_OFF = {1, 0, -1, 0, 1, -1, -1, 1};
+
+	protected LayerManager layerManager;
+	protected RenderMaskHandlerSystem renderMaskHandlerSystem;
+	protected ArrivalFieldManager arrivalFieldManager;
+
+	private DomainSystem domainSystem;
+
+	private List<int[]> polylines = new ArrayList<>();
+
+	@SuppressWarnings("unchecked")
+	public BattlefrontSystem() {
+		super(Aspect.getAspectForAll(Routable.class, Pos.class, Techpoint.class));
+	}
+
+	@Override
+	protected void initialize() {
+		// drawn over presence, trace after it.
+		setPrerequisiteSystems(domainSystem);
+	}
+
+	@Override
+	public boolean feedsActiveView() {
+		return renderMaskHandlerSystem.getActiveMask() == RenderMask.Mask.TEAM_DOMAINS;
+	}
+
+	@Override
+	protected boolean prerequisitesMet() {
+		// only render when on the right layer.
+		return super.prerequisitesMet() && feedsActiveView();
+	}
+
+	@Override
+	protected void collectJobs(ImmutableBag<Entity> entities, LinkedList<Job> jobs) {
+		final Layer layer = getBattlefrontLayer();
+		layer.clearTransparent();
+		polylines = new ArrayList<>();
+
+		jobs.add(new TraceBattlefrontJob(layer));
+	}
+
+	private Layer getBattlefrontLayer() {
+		// in front of presence.
+		return layerManager.getLayer("BATTLEFRONT", RenderMask.Mask.TEAM_DOMAINS, -95);
+	}
+
+	@Override
+	protected void postJobs() {
+		getBattlefrontLayer().invalidateTexture();
+	}
+
+	@Override
+	protected long maxDuration() {
+		return 10;
+	}
+
+	/**
+	 * @return battlefront polylines as cell indices, (y * width + x).
+	 */
+	public List<int[]> getPolylines() {
+		return polylines;
+	}
+
+	private class TraceBattlefrontJob implements Job {
+
+		private final Layer layerOut;
+		private boolean completed;
+
+		public TraceBattlefrontJob(Layer layerOut) {
+			this.layerOut = layerOut;
+		}
+
+		@Override
+		public void run() {
+			// whole grid, equal arrival can lie beyond the presence radius.
+			if (!arrivalFieldManager.buildNearestField(Team.ALIEN, Team.ALIEN, ArrivalFieldManager.UNCAPPED, remainingSliceNanos())) return;
+			if (!arrivalFieldManager.buildNearestField(Team.MARINE, Team.MARINE, ArrivalFieldManager.UNCAPPED, remainingSliceNanos())) return;
+
+			final ArrivalField alien = arrivalFieldManager.getNearestField(Team.ALIEN, Team.ALIEN, ArrivalFieldManager.UNCAPPED);
+			final ArrivalField marine = arrivalFieldManager.getNearestField(Team.MARINE, Team.MARINE, ArrivalFieldManager.UNCAPPED);
+			final int width = alien.width;
+			final int height = alien.height;
+
+			final boolean[] front = markFront(alien, marine, width, height);
+			polylines = trace(front, width, height);
+
+			for (int[] polyline : polylines) {
+				draw(polyline, width);
+			}
+			layerOut.invalidateTexture();
+			completed = true;
+		}
+
+		/**
+		 * Mark cells on the alien side where a neighbour is on the marine side.
+		 */
+		private boolean[] markFront(ArrivalField alien, ArrivalField marine, int width, int height) {
+			final float[] difference = new float[width * height];
+			final boolean[] reached = new boolean[width * height];
+			for (int cell = 0; cell < difference.length; cell++) {
+				final int alienCost = alien.getCost(cell);
+				final int marineCost = marine.getCost(cell);
+				reached[cell] = alienCost != DistanceField.UNREACHED && marineCost != DistanceField.UNREACHED;
+				if (reached[cell]) {
+					difference[cell] = arrivalFieldManager.toSeconds(Team.ALIEN, alienCost) - arrivalFieldManager.toSeconds(Team.MARINE, marineCost);
+				}
+			}
+
+			final boolean[] front = new boolean[width * height];
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					final int cell = y * width + x;
+					if (!reached[cell] || difference[cell] > 0 || -difference[cell] > TOLERANCE_SECONDS) continue;
+					for (int dir = 0; dir < 4; dir++) {
+						final int xx = x + X_OFF[dir];
+						final int yy = y + Y_OFF[dir];
+						if (xx < 0 || yy < 0 || xx >= width || yy >= height) continue;
+						final int neighbour = yy * width + xx;
+						if (reached[neighbour] && difference[neighbour] > 0 && difference[neighbour] <= TOLERANCE_SECONDS) {
+							front[cell] = true;
+							break;
+						}
+					}
+				}
+			}
+			return front;
+		}
+
+		/**
+		 * Follow connected front cells into polylines, starting from line ends so lines are not split up.
+		 */
+		private List<int[]> trace(boolean[] front, int width, int height) {
+			final List<int[]> result = new ArrayList<>();
+			final boolean[] visited = new boolean[front.length];
+			final int[] buffer = new int[front.length];
+
+			for (int pass = 0; pass < 2; pass++) {
+				for (int cell = 0; cell < front.length; cell++) {
+					if (!front[cell] || visited[cell]) continue;
+					// first pass only starts at line ends, the second picks up loops.
+					if (pass == 0 && countNeighbours(front, visited, cell, width, height) > 1) continue;
+
+					int length = 0;
+					int current = cell;
+					while (current != -1) {
+						visited[current] = true;
+						buffer[length++] = current;
+						current = nextCell(front, visited, current, width, height);
+					}
+
+					if (length >= MIN_POLYLINE_CELLS) {
+						final int[] polyline = new int[length];
+						System.arraycopy(buffer, 0, polyline, 0, length);
+						result.add(polyline);
+					}
+				}
+			}
+			return result;
+		}
+
+		private int countNeighbours(boolean[] front, boolean[] visited, int cell, int width, int height) {
+			int count = 0;
+			final int x = cell % width;
+			final int y = cell / width;
+			for (int dir = 0; dir < 8; dir++) {
+				final int xx = x + X_OFF[dir];
+				final int yy = y + Y_OFF[dir];
+				if (xx >= 0 && yy >= 0 && xx < width && yy < height && front[yy * width + xx] && !visited[yy * width + xx]) {
+					count++;
+				}
+			}
+			return count;
+		}
+
+		/**
+		 * @return unvisited neighbouring front cell, orthogonal first, or -1.
+		 */
+		private int nextCell(boolean[] front, boolean[] visited, int cell, int width, int height) {
+			final int x = cell % width;
+			final int y = cell / width;
+			for (int dir = 0; dir < 8; dir++) {
+				final int xx = x + X_OFF[dir];
+				final int yy = y + Y_OFF[dir];
+				if (xx >= 0 && yy >= 0 && xx < width && yy < height && front[yy * width + xx] && !visited[yy * width + xx]) {
+					return yy * width + xx;
+				}
+			}
+			return -1;
+		}
+
+		private void draw(int[] polyline, int width) {
+			final int height = layerOut.pixmap.getHeight();
+
+			layerOut.pixmap.setColor(SHADOW_COLOR);
+			for (int i = 1; i < polyline.length; i++) {
+				layerOut.pixmap.drawLine(
+						polyline[i - 1] % width, height - polyline[i - 1] / width + 1,
+						polyline[i] % width, height - polyline[i] / width + 1);
+			}
+
+			layerOut.pixmap.setColor(FRONT_COLOR);
+			for (int i = 1; i < polyline.length; i++) {
+				layerOut.pixmap.drawLine(
+						polyline[i - 1] % width, height - polyline[i - 1] / width,
+						polyline[i] % width, height - polyline[i] / width);
+			}
+		}
+
+		@Override
+		public boolean isCompleted() {
+			return completed;
+		}
+	}
+}
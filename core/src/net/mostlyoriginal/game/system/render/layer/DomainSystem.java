@@ -9,12 +9,14 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.math.Interpolation;
 import net.mostlyoriginal.api.component.basic.Pos;
 import net.mostlyoriginal.game.api.DelayedEntitySystem;
+import net.mostlyoriginal.game.api.pathfinding.grid.ArrivalField;
+import net.mostlyoriginal.game.api.pathfinding.grid.DistanceField;
 import net.mostlyoriginal.game.component.Layer;
 import net.mostlyoriginal.game.component.Routable;
 import net.mostlyoriginal.game.component.Team;
-import net.mostlyoriginal.game.component.TeamMember;
 import net.mostlyoriginal.game.component.buildings.Techpoint;
 import net.mostlyoriginal.game.component.ui.RenderMask;
+import net.mostlyoriginal.game.manager.ArrivalFieldManager;
 import net.mostlyoriginal.game.manager.LayerManager;
 import net.mostlyoriginal.game.manager.MapMetadataManager;
 import net.mostlyoriginal.game.system.logic.RenderMaskHandlerSystem;
@@ -34,15 +36,15 @@ import java.util.LinkedList;
 @Wire(injectInherited = true)
 public class DomainSystem extends DelayedEntitySystem {
 
-	public static final int ORTHO_MOVEMENT = 10;
-	public static final int DIAGO_MOVEMENT = 14;
+	public static final int ORTHO_MOVEMENT = DistanceField.ORTHOGONAL_COST;
+	public static final int DIAGO_MOVEMENT = DistanceField.DIAGONAL_COST;
 	public static final int MAX_SECONDS_RADIUS = 27;
 	protected LayerManager layerManager;
 	protected RenderMaskHandlerSystem renderMaskHandlerSystem;
 	protected MapMetadataManager mapMetadataManager;
+	protected ArrivalFieldManager arrivalFieldManager;
 
 	protected ComponentMapper<Routable> mRoutable;
-	protected ComponentMapper<TeamMember> mTeamMember;
 
 	private PreferredRouteCalculationSystem preferredRouteCalculationSystem;
 
@@ -57,10 +59,15 @@ public class DomainSystem extends DelayedEntitySystem {
 	}
 
 
+	@Override
+	public boolean feedsActiveView() {
+		return renderMaskHandlerSystem.getActiveMask() == RenderMask.Mask.TEAM_DOMAINS;
+	}
+
 	@Override
 	protected boolean prerequisitesMet() {
 		// only render when on the right layer.
-		return super.prerequisitesMet() && renderMaskHandlerSystem.getActiveMask() == RenderMask.Mask.TEAM_DOMAINS;
+		return super.prerequisitesMet() && feedsActiveView();
 	}
 
 	@Override
@@ -69,7 +76,7 @@ public class DomainSystem extends DelayedEntitySystem {
 		layerManager.clearWithMap(layer, Color.WHITE, 0.3f);
 
 		for (Team team : Team.values()) {
-			jobs.add(new FloodFillJob(layerManager.getTeamNavLayer(team), layer, entities, team));
+			jobs.add(new FloodFillJob(layer, team));
 		}
 	}
 
@@ -82,23 +89,11 @@ public class DomainSystem extends DelayedEntitySystem {
 		getDomainsLayer().invalidateTexture();
 	}
 
-	public class Node {
-		public final int x;
-		public final int y;
-
-		public int totalCost;
-
-		public Node parent;
-
-		private Node(int x, int y, int totalCost) {
-			this.x = x;
-			this.y = y;
-			this.totalCost = totalCost;
-		}
-
-		public int totalDistance() {
-			return totalCost;
-		}
+	/**
+	 * @return max field cost of presence of team, in pixels * 10.
+	 */
+	public int getPresenceCost(Team team) {
+		return (int) (((Math.round(team.getAvgSpeed() * MAX_SECONDS_RADIUS)) / mapMetadataManager.getMetadata().unitsPerPixel) * ORTHO_MOVEMENT);
 	}
 
 	@Override
@@ -106,43 +101,27 @@ public class DomainSystem extends DelayedEntitySystem {
 		return 10;
 	}
 
+	/**
+	 * Paint presence of team, from the shared arrival field of its techpoints.
+	 * All its techpoints are flooded at once up to the presence radius, sliced by the job budget.
+	 */
 	private class FloodFillJob implements Job {
 
-		private final Layer layerRaw;
 		private final Layer layerOut;
-		private final ImmutableBag<Entity> entities;
 		private final Team team;
-		LinkedList<Node> open = new LinkedList<Node>();
 
-		int xOff[] = {-1, 0, 1, 1, 1, 0, -1, -1};
-		int yOff[] = {-1, -1, -1, 0, 1, 1, 1, 0};
-		private final boolean[] closed;
-		private final float maxRouteLength;
+		private final int maxRouteLength;
 		private final Color colorNear;
 		private final Color colorFar;
 		private final Color vTmp = new Color();
 
-		public FloodFillJob(Layer layerRaw, Layer layerOut, ImmutableBag<Entity> entities, Team team) {
-			this.layerRaw = layerRaw;
+		private boolean completed;
+
+		public FloodFillJob(Layer layerOut, Team team) {
 			this.layerOut = layerOut;
-			this.entities = entities;
 			this.team = team;
 
-			open.clear();
-			closed = new boolean[layerOut.pixmap.getHeight() * layerOut.pixmap.getWidth()];
-
-			for (int i = 0, s = entities.size(); i < s; i++) {
-				final Entity e = entities.get(i);
-				final Routable routable = mRoutable.get(e);
-				if (mTeamMember.has(e)) {
-					if (mTeamMember.get(e).team == team) {
-						createUpdateNode(routable.getX(), routable.getY(), null, false);
-					}
-				}
-			}
-
-			// calculate max route length, in pixels * 10.
-			maxRouteLength = calculateDistance(team, MAX_SECONDS_RADIUS, mapMetadataManager.getMetadata().unitsPerPixel);
+			maxRouteLength = getPresenceCost(team);
 
 			colorNear = new Color(team.getPathColor());
 			colorFar = new Color(team.getPathColor());
@@ -150,80 +129,35 @@ public class DomainSystem extends DelayedEntitySystem {
 			colorFar.g = 1f;
 		}
 
-
-		private float calculateDistance(Team team, int seconds, float unitsPerPixel) {
-			return ((Math.round(team.getAvgSpeed() * seconds)) / unitsPerPixel) * ORTHO_MOVEMENT;
-		}
-
-		private Node createUpdateNode(int x, int y, Node parent, boolean diagonal) {
-
-			final int updatedCost = parent != null ? parent.totalCost + (diagonal ? DIAGO_MOVEMENT : ORTHO_MOVEMENT) : 0;
-
-			for (Node node : open) {
-				if (node.x == x && node.y == y) {
-					if (updatedCost < node.totalCost) {
-						node.totalCost = updatedCost;
-						node.parent = parent;
-					}
-					return node;
-				}
-			}
-
-			final Node node = new Node(x, y, updatedCost);
-			node.parent = parent;
-
-			open.add(node);
-
-			return node;
-		}
-
 		@Override
 		public void run() {
 
-			int remainingCycles = 1000;
-			while ((remainingCycles-- > 0) && !open.isEmpty()) {
-				final Node node = open.get(0);
-				open.removeFirst();
-
-				closed[node.x + node.y * layerOut.pixmap.getWidth()] = true;
-
-				for (int i = 0; i < 8; i++) {
-					final int childX = node.x + xOff[i];
-					final int childY = node.y + yOff[i];
-
-					// bound check.
-					if (childX < 0 || childY < 0 || childX >= layerOut.pixmap.getWidth() || childY >= layerOut.pixmap.getHeight())
-						continue;
+			if (!arrivalFieldManager.buildNearestField(team, team, maxRouteLength, remainingSliceNanos())) return;
 
-					int rawColor = layerRaw.pixmap.getPixel(childX, layerOut.pixmap.getHeight() - childY);
-					boolean isWalkable = ((rawColor & 0x000000ff)) / 255f >= 0.5f && ((rawColor != 0xffffffff));
-
-					// node not closed yet and location walkable? ONWARD!
-					if (!closed[childX + childY * layerOut.pixmap.getWidth()] && isWalkable) {
+			paint(arrivalFieldManager.getNearestField(team, team, maxRouteLength));
+			completed = true;
+		}
 
-						final boolean diagonal = xOff[i] != 0 && yOff[i] != 0;
+		private void paint(ArrivalField field) {
+			final int width = Math.min(field.width, layerOut.pixmap.getWidth());
+			final int height = Math.min(field.height, layerOut.pixmap.getHeight());
 
-						final Node childNode = createUpdateNode(childX, childY, node, diagonal);
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					final int cost = field.getCost(x, y);
 
-						// apply maximum distance for searches to keep things snappy.
-						if (childNode.totalCost > maxRouteLength) {
-							open.remove(childNode);
-							closed[childNode.x + childNode.y * layerOut.pixmap.getWidth()] = true;
-						} else {
-							// create crossbar style.
-							if ((childX + (team == Team.MARINE ? childY : childY * 7)) % 8 < 4) {
+					// create crossbar style.
+					if (cost <= maxRouteLength && (x + (team == Team.MARINE ? y : y * 7)) % 8 < 4) {
 
-								float tween = childNode.totalCost / maxRouteLength;
+						float tween = cost / (float) maxRouteLength;
 
-								vTmp.r = Interpolation.pow2Out.apply(colorNear.r, colorFar.r, tween);
-								vTmp.g = Interpolation.pow2Out.apply(colorNear.g, colorFar.g, tween);
-								vTmp.b = Interpolation.pow2Out.apply(colorNear.b, colorFar.b, tween);
-								vTmp.a = Interpolation.pow2Out.apply(colorNear.a, colorFar.a, tween);
+						vTmp.r = Interpolation.pow2Out.apply(colorNear.r, colorFar.r, tween);
+						vTmp.g = Interpolation.pow2Out.apply(colorNear.g, colorFar.g, tween);
+						vTmp.b = Interpolation.pow2Out.apply(colorNear.b, colorFar.b, tween);
+						vTmp.a = Interpolation.pow2Out.apply(colorNear.a, colorFar.a, tween);
 
-								layerOut.pixmap.setColor(vTmp);
-								layerOut.pixmap.drawPixel(childX, layerOut.pixmap.getHeight() - childY);
-							}
-						}
+						layerOut.pixmap.setColor(vTmp);
+						layerOut.pixmap.drawPixel(x, layerOut.pixmap.getHeight() - y);
 					}
 				}
 			}
@@ -233,9 +167,7 @@ public class DomainSystem extends DelayedEntitySystem {
 
 		@Override
 		public boolean isCompleted() {
-			return open.isEmpty();
+			return completed;
 		}
 	}
-
-
 }
@@ -0,0 +1,251 @@
+package net.mostlyoriginal.game.system.render.layer;
+
+import com.artemis.Aspect;
+import com.artemis.Entity;
+import com.artemis.annotations.Wire;
+import com.artemis.utils.ImmutableBag;
+import com.badlogic.gdx.graphics.Color;
+import net.mostlyoriginal.api.component.basic.Pos;
+import net.mostlyoriginal.game.api.DelayedEntitySystem;
+import net.mostlyoriginal.game.api.RawMapSnapshot;
+import net.mostlyoriginal.game.api.pathfinding.grid.ArrivalField;
+import net.mostlyoriginal.game.component.Layer;
+import net.mostlyoriginal.game.component.Routable;
+import net.mostlyoriginal.game.component.Team;
+import net.mostlyoriginal.game.component.buildings.Techpoint;
+import net.mostlyoriginal.game.component.ui.RenderMask;
+import net.mostlyoriginal.game.manager.ArrivalFieldManager;
+import net.mostlyoriginal.game.manager.LayerManager;
+import net.mostlyoriginal.game.system.logic.RenderMaskHandlerSystem;
+import net.mostlyoriginal.game.system.logic.analysis.PreferredRouteCalculationSystem;
+
+import java.util.LinkedList;
+
+/**
+ * Travel time bands from the nearest techpoint of the team of the active isochrone view.
+ * <p/>
+ * Contours are extracted with marching squares from the shared arrival field,
+ * and every other band is tinted. All pixels are composed in a buffer and
+ * written to the layer at once.
+ *
+ * @author Daan van Yperen
+ */
+@Wire(injectInherited = true)
+public class IsochroneSystem extends DelayedEntitySystem {
+
+	public static final int DEFAULT_INTERVAL_SECONDS = 5;
+
+	// every nth contour is drawn darker.
+	private static final int MAJOR_CONTOUR_EVERY = 6;
+
+	protected LayerManager layerManager;
+	protected RenderMaskHandlerSystem renderMaskHandlerSystem;
+	protected ArrivalFieldManager arrivalFieldManager;
+
+	private PreferredRouteCalculationSystem preferredRouteCalculationSystem;
+
+	private float intervalSeconds = DEFAULT_INTERVAL_SECONDS;
+	private Team paintedTeam;
+
+	@SuppressWarnings("unchecked")
+	public IsochroneSystem() {
+		super(Aspect.getAspectForAll(Routable.class, Pos.class, Techpoint.class));
+	}
+
+	@Override
+	protected void initialize() {
+		setPrerequisiteSystems(preferredRouteCalculationSystem);
+	}
+
+	@Override
+	public boolean feedsActiveView() {
+		return getActiveTeam() != null;
+	}
+
+	/**
+	 * @return team of the active isochrone view, or null when no isochrones are visible.
+	 */
+	private Team getActiveTeam() {
+		switch (renderMaskHandlerSystem.getActiveMask()) {
+			case ISOCHRONE_ALIEN:
+				return Team.ALIEN;
+			case ISOCHRONE_MARINE:
+				return Team.MARINE;
+			default:
+				return null;
+		}
+	}
+
+	@Override
+	protected void begin() {
+		// switched between isochrone views, paint the other team.
+		final Team team = getActiveTeam();
+		if (team != null && team != paintedTeam && !isDirty()) {
+			setDirty(true);
+		}
+	}
+
+	@Override
+	protected boolean prerequisitesMet() {
+		// only render when on the right layer.
+		return super.prerequisitesMet() && feedsActiveView();
+	}
+
+	@Override
+	protected long maxDuration() {
+		return 10;
+	}
+
+	@Override
+	protected void collectJobs(ImmutableBag<Entity> entities, LinkedList<Job> jobs) {
+		// only one isochrone view is visible at a time.
+		paintedTeam = getActiveTeam();
+		jobs.add(new IsochroneJob(getIsochroneLayer(paintedTeam), paintedTeam));
+	}
+
+	private Layer getIsochroneLayer(Team team) {
+		return team == Team.ALIEN ?
+				layerManager.getLayer("ISOCHRONE_ALIEN", RenderMask.Mask.ISOCHRONE_ALIEN) :
+				layerManager.getLayer("ISOCHRONE_MARINE", RenderMask.Mask.ISOCHRONE_MARINE);
+	}
+
+	/**
+	 * Seconds between contours, must be positive.
+	 */
+	public void setIntervalSeconds(float intervalSeconds) {
+		if (!(intervalSeconds > 0)) {
+			throw new IllegalArgumentException("Invalid isochrone interval " + intervalSeconds + ", must be positive.");
+		}
+		this.intervalSeconds = intervalSeconds;
+		setDirty(true);
+	}
+
+	public float getIntervalSeconds() {
+		return intervalSeconds;
+	}
+
+	private class IsochroneJob implements Job {
+
+		private final Layer layerOut;
+		private final Team team;
+		private boolean completed;
+
+		public IsochroneJob(Layer layerOut, Team team) {
+			this.layerOut = layerOut;
+			this.team = team;
+		}
+
+		@Override
+		public void run() {
+
+			// flood from all techpoints at once, sliced by the job budget.
+			if (!arrivalFieldManager.buildNearestField(team, team, ArrivalFieldManager.UNCAPPED, remainingSliceNanos())) return;
+
+			final ArrivalField field = arrivalFieldManager.getNearestField(team, team, ArrivalFieldManager.UNCAPPED);
+			final float[] seconds = toSeconds(field);
+			final int[] pixels = new int[field.width * field.height];
+
+			paintBands(seconds, pixels);
+			paintContours(seconds, pixels, field.width, field.height);
+
+			layerManager.writePixels(layerOut, pixels);
+			completed = true;
+		}
+
+		/**
+		 * @return seconds per cell, negative when unreachable.
+		 */
+		private float[] toSeconds(ArrivalField field) {
+			final float[] seconds = new float[field.width * field.height];
+			for (int cell = 0; cell < seconds.length; cell++) {
+				seconds[cell] = arrivalFieldManager.toSeconds(team, field.getCost(cell));
+			}
+			return seconds;
+		}
+
+		/**
+		 * Map as background, walkable cells faded, every other band tinted in team color.
+		 */
+		private void paintBands(float[] seconds, int[] pixels) {
+			final RawMapSnapshot raw = layerManager.getRawSnapshot();
+			final Color tint = team.getPathColor();
+			final Color tmp = new Color();
+			final int white = Color.rgba8888(Color.WHITE);
+
+			for (int cell = 0; cell < pixels.length; cell++) {
+				final int rawColor = raw.pixels[cell];
+				if ((rawColor & 0xff) / 255f < 0.5f) {
+					pixels[cell] = white;
+					continue;
+				}
+
+				tmp.set(rawColor);
+				tmp.lerp(Color.WHITE, 0.7f);
+				if (seconds[cell] >= 0 && ((int) (seconds[cell] / intervalSeconds)) % 2 == 1) {
+					tmp.lerp(tint, 0.15f);
+				}
+				tmp.a = 1f;
+				pixels[cell] = Color.rgba8888(tmp);
+			}
+		}
+
+		/**
+		 * Marching squares over cell centers, plots crossings of every contour level.
+		 */
+		private void paintContours(float[] seconds, int[] pixels, int width, int height) {
+			final int minor = Color.rgba8888(team.getPathColor());
+			final int major = Color.rgba8888(new Color(team.getPathColor()).mul(0.5f, 0.5f, 0.5f, 1f));
+			final float[] crossX = new float[4];
+			final float[] crossY = new float[4];
+
+			for (int y = 0; y < height - 1; y++) {
+				for (int x = 0; x < width - 1; x++) {
+					final float v0 = seconds[y * width + x];
+					final float v1 = seconds[y * width + x + 1];
+					final float v2 = seconds[(y + 1) * width + x + 1];
+					final float v3 = seconds[(y + 1) * width + x];
+
+					// contours stop at unreachable cells.
+					if (v0 < 0 || v1 < 0 || v2 < 0 || v3 < 0) continue;
+
+					final float min = Math.min(Math.min(v0, v1), Math.min(v2, v3));
+					final float max = Math.max(Math.max(v0, v1), Math.max(v2, v3));
+
+					for (int level = (int) (min / intervalSeconds) + 1; level * intervalSeconds <= max; level++) {
+						final float value = level * intervalSeconds;
+
+						// crossings on the edges, in winding order.
+						int count = 0;
+						if ((v0 < value) != (v1 < value)) { crossX[count] = x + lerp(v0, v1, value); crossY[count++] = y; }
+						if ((v1 < value) != (v2 < value)) { crossX[count] = x + 1; crossY[count++] = y + lerp(v1, v2, value); }
+						if ((v2 < value) != (v3 < value)) { crossX[count] = x + 1 - lerp(v2, v3, value); crossY[count++] = y + 1; }
+						if ((v3 < value) != (v0 < value)) { crossX[count] = x; crossY[count++] = y + 1 - lerp(v3, v0, value); }
+
+						final int color = level % MAJOR_CONTOUR_EVERY == 0 ? major : minor;
+						for (int i = 0; i + 1 < count; i += 2) {
+							plot(pixels, width, crossX[i], crossY[i], color);
+							plot(pixels, width, (crossX[i] + crossX[i + 1]) / 2, (crossY[i] + crossY[i + 1]) / 2, color);
+							plot(pixels, width, crossX[i + 1], crossY[i + 1], color);
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * @return fraction along edge from a to b where value is crossed.
+		 */
+		private float lerp(float a, float b, float value) {
+			return (value - a) / (b - a);
+		}
+
+		private void plot(int[] pixels, int width, float x, float y, int color) {
+			pixels[Math.round(y) * width + Math.round(x)] = color;
+		}
+
+		@Override
+		public boolean isCompleted() {
+			return completed;
+		}
+	}
+}
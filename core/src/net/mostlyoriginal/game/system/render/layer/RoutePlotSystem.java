@@ -15,7 +15,6 @@ import net.mostlyoriginal.api.component.basic.Pos;
 import net.mostlyoriginal.api.component.graphics.Renderable;
 import net.mostlyoriginal.game.Path;
 import net.mostlyoriginal.game.api.DelayedEntitySystem;
-import net.mostlyoriginal.game.api.pathfinding.grid.GridNode;
 import net.mostlyoriginal.game.component.*;
 import net.mostlyoriginal.game.component.ui.Clickable;
 import net.mostlyoriginal.game.component.ui.Label;
@@ -54,15 +53,25 @@ public class RoutePlotSystem extends DelayedEntitySystem {
 		setPrerequisiteSystems(preferredRouteCalculationSystem);
 	}
 
+	@Override
+	public boolean feedsActiveView() {
+		return renderMaskHandlerSystem.getActiveMask() == RenderMask.Mask.PATHFIND_ALIEN || renderMaskHandlerSystem.getActiveMask() == RenderMask.Mask.PATHFIND_MARINE;
+	}
+
 	@Override
 	protected boolean prerequisitesMet() {
 		// only render when on the right layer.
-		return super.prerequisitesMet() && (renderMaskHandlerSystem.getActiveMask() == RenderMask.Mask.PATHFIND_ALIEN || renderMaskHandlerSystem.getActiveMask() == RenderMask.Mask.PATHFIND_MARINE);
+		return super.prerequisitesMet() && feedsActiveView();
 	}
 
 	@Override
 	protected void collectJobs(ImmutableBag<Entity> entities, LinkedList<Job> jobs) {
 
+		// start from clean nav masks, the grid is not necessarily rebuilt before each plot.
+		for (Team team : Team.values()) {
+			layerManager.resetTeamNavLayer(team);
+		}
+
 		// render all secondary paths as shadows.
 		for (int i = 0, s = entities.size(); i < s; i++) {
 			final Entity e = entities.get(i);
@@ -151,14 +160,15 @@ public class RoutePlotSystem extends DelayedEntitySystem {
 	 */
 	private void addLabel(Color lineColor, Path path, Pixmap pixmap, RenderMask renderMask, String text, DistanceIndicator distanceIndicator) {
 
-		int center = path.cells.size() / 2;
-		GridNode cell = path.cells.get(center)  ;
+		int center = path.indexAtDistance(path.getLength() / 2);
 
 		// use a couple distance to get a smoother angle.
-		GridNode cell2 = center + 3 < path.cells.size() ? path.cells.get(center + 3) : cell;
+		int center2 = center + 3 < path.size() ? center + 3 : center;
 
-		vTmp.set(cell.x, cell.y).sub(cell2.x, cell2.y).rotate90(-1).nor().scl(10).add(cell.x, cell.y);
-		drawBubble(lineColor, text, cell.x, cell.y, (int) vTmp.x, (int) vTmp.y, pixmap, renderMask, distanceIndicator);
+		final int x = path.getX(center);
+		final int y = path.getY(center);
+		vTmp.set(x, y).sub(path.getX(center2), path.getY(center2)).rotate90(-1).nor().scl(10).add(x, y);
+		drawBubble(lineColor, text, x, y, (int) vTmp.x, (int) vTmp.y, pixmap, renderMask, distanceIndicator);
 	}
 
 	/**
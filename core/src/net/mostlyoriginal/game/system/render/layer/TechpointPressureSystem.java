@@ -8,18 +8,17 @@ import com.artemis.utils.ImmutableBag;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.math.Interpolation;
 import net.mostlyoriginal.api.component.basic.Pos;
-import net.mostlyoriginal.game.Path;
 import net.mostlyoriginal.game.api.DelayedEntitySystem;
 import net.mostlyoriginal.game.component.*;
 import net.mostlyoriginal.game.component.buildings.ResourceNode;
 import net.mostlyoriginal.game.component.buildings.Techpoint;
 import net.mostlyoriginal.game.component.ui.RenderMask;
 import net.mostlyoriginal.game.manager.LayerManager;
-import net.mostlyoriginal.game.manager.MapMetadataManager;
+import net.mostlyoriginal.game.manager.TravelTimeManager;
 import net.mostlyoriginal.game.system.logic.RenderMaskHandlerSystem;
 import net.mostlyoriginal.game.system.logic.analysis.PreferredRouteCalculationSystem;
 
-import java.util.*;
+import java.util.LinkedList;
 
 /**
  * Estimate what techpoints will be able to pressure resource towers
@@ -44,7 +43,7 @@ public class TechpointPressureSystem extends DelayedEntitySystem {
 	private RoutePlotSystem routePlotSystem;
 	private PreferredRouteCalculationSystem preferredRouteCalculationSystem;
 	private RenderMaskHandlerSystem renderMaskHandlerSystem;
-	private MapMetadataManager mapMetadataManager;
+	private TravelTimeManager travelTimeManager;
 
 
 	@SuppressWarnings("unchecked")
@@ -80,10 +79,15 @@ public class TechpointPressureSystem extends DelayedEntitySystem {
 	}
 
 
+	@Override
+	public boolean feedsActiveView() {
+		return renderMaskHandlerSystem.getActiveMask() == RenderMask.Mask.RT_PRESSURE;
+	}
+
 	@Override
 	protected boolean prerequisitesMet() {
 		// only render when on the right layer.
-		return super.prerequisitesMet() && renderMaskHandlerSystem.getActiveMask() == RenderMask.Mask.RT_PRESSURE;
+		return super.prerequisitesMet() && feedsActiveView();
 	}
 
 
@@ -91,84 +95,36 @@ public class TechpointPressureSystem extends DelayedEntitySystem {
 
 		Layer layer = getTechpointLayer();
 
-		List<Path> combinedPaths = new ArrayList<Path>();
-
-		// build a list of all paths, sorted by TRAVEL TIME. which can be different based on the team running the path.
-		for (Team team : Team.values()) {
-			for (Path path : routable.paths.get(team)) {
-
-				Entity destination = path.destination.get();
-				// only include claimed destinations that are also techpoints.
-				if (mTechpoint.has(destination)) {
-
-					Team techpointTeam = mTeamMember.get(destination).team;
-
-					// make sure team only uses paths meant for them.
-					if (techpointTeam == path.team) {
-						combinedPaths.add(path);
-					}
-
-				}
-			}
-		}
-
-		final float unitsPerPixel = mapMetadataManager.getMetadata().unitsPerPixel;
-
-		// sort by ESTIMATED TRAVEL TIME of the team holding the techpoint.
-		Collections.sort(combinedPaths, new Comparator<Object>()
+		final int from = travelTimeManager.indexOf(e);
+		if (from == -1) return;
 
-				{
-					@Override
-					public int compare(Object o1, Object o2) {
-						Path p1 = (Path) o1;
-						Path p2 = (Path) o2;
-
-						// we want to determine travel time by team membership.
-						TeamMember t1 = mTeamMember.get(p1.destination.get());
-						TeamMember t2 = mTeamMember.get(p2.destination.get());
-
-						return t1.team.getTravelTimeInSeconds(p1, unitsPerPixel) - t2.team.getTravelTimeInSeconds(p2, unitsPerPixel);
-					}
-				}
-
-		);
-
-
-		// render fastest paths for each team.
+		// render fastest paths for each team, from techpoints held by that team.
 
 		int alienSpeed = 0;
 		int marineSpeed = 0;
 
 		for (Team team : Team.values()) {
-			float closest = -1;
-			for (
-					Path path
-					: combinedPaths)
-
-			{
-				Entity destination = path.destination.get();
-				if (mTechpoint.has(destination)) {
-
-					// relevant team.
-
-					if (path.team != team)
-						continue;
-
-					int travelTimeInSeconds = path.team.getTravelTimeInSeconds(path, unitsPerPixel);
-					if (closest == -1) closest = travelTimeInSeconds;
-
-					if (team == Team.ALIEN && alienSpeed == 0) alienSpeed = travelTimeInSeconds;
-					if (team == Team.MARINE && marineSpeed == 0) marineSpeed = travelTimeInSeconds;
-
-					// abort when paths are longer than 10% of the closest techpoint.
-					if (travelTimeInSeconds > closest * 1.1f)
-						break;
-
-					routePlotSystem.renderPath(path,
-							layer,
-							path.team.getPathColor(),
-							new RenderMask(RenderMask.Mask.RT_PRESSURE), false);
-				}
+			final int nearest = travelTimeManager.getNearestTechpoint(team, from, team);
+			if (nearest == -1)
+				continue;
+
+			final int closest = travelTimeManager.getTravelTimeInSeconds(team, from, nearest);
+			if (team == Team.ALIEN) alienSpeed = closest;
+			if (team == Team.MARINE) marineSpeed = closest;
+
+			for (int to = 0, s = travelTimeManager.size(); to < s; to++) {
+				if (!travelTimeManager.isTechpoint(to) || travelTimeManager.getOwner(to) != team)
+					continue;
+
+				// skip paths longer than 10% of the closest techpoint.
+				final int travelTimeInSeconds = travelTimeManager.getTravelTimeInSeconds(team, from, to);
+				if (travelTimeInSeconds == -1 || travelTimeInSeconds > closest * 1.1f)
+					continue;
+
+				routePlotSystem.renderPath(travelTimeManager.getPath(team, from, to),
+						layer,
+						team.getPathColor(),
+						new RenderMask(RenderMask.Mask.RT_PRESSURE), false);
 			}
 		}
 
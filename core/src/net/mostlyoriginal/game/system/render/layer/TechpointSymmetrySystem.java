@@ -7,17 +7,15 @@ import com.artemis.annotations.Wire;
 import com.artemis.utils.ImmutableBag;
 import com.badlogic.gdx.graphics.Color;
 import net.mostlyoriginal.api.component.basic.Pos;
-import net.mostlyoriginal.game.Path;
 import net.mostlyoriginal.game.api.DelayedEntitySystem;
 import net.mostlyoriginal.game.component.Layer;
 import net.mostlyoriginal.game.component.Persistable;
 import net.mostlyoriginal.game.component.Routable;
 import net.mostlyoriginal.game.component.Team;
 import net.mostlyoriginal.game.component.buildings.ResourceNode;
-import net.mostlyoriginal.game.component.buildings.Techpoint;
 import net.mostlyoriginal.game.component.ui.RenderMask;
 import net.mostlyoriginal.game.manager.LayerManager;
-import net.mostlyoriginal.game.manager.MapMetadataManager;
+import net.mostlyoriginal.game.manager.TravelTimeManager;
 import net.mostlyoriginal.game.system.logic.RenderMaskHandlerSystem;
 import net.mostlyoriginal.game.system.logic.analysis.PreferredRouteCalculationSystem;
 
@@ -42,13 +40,12 @@ public class TechpointSymmetrySystem extends DelayedEntitySystem {
 
 	protected ComponentMapper<Routable> mRoutable;
 	protected ComponentMapper<Persistable> mPersistable;
-	protected ComponentMapper<Techpoint> mTechpoint;
 	protected ComponentMapper<RenderMask> mRenderMask;
 
 	protected RoutePlotSystem routePlotSystem;
 	private PreferredRouteCalculationSystem preferredRouteCalculationSystem;
 	private RenderMaskHandlerSystem renderMaskHandlerSystem;
-	private MapMetadataManager mapMetadataManager;
+	private TravelTimeManager travelTimeManager;
 
 	@SuppressWarnings("unchecked")
 	public TechpointSymmetrySystem() {
@@ -73,10 +70,15 @@ public class TechpointSymmetrySystem extends DelayedEntitySystem {
 		}
 	}
 
+	@Override
+	public boolean feedsActiveView() {
+		return renderMaskHandlerSystem.getActiveMask() == RenderMask.Mask.RT_SYMMETRY_ALIEN || renderMaskHandlerSystem.getActiveMask() == RenderMask.Mask.RT_SYMMETRY_MARINE;
+	}
+
 	@Override
 	protected boolean prerequisitesMet() {
 		// only render when on the right layer.
-		return super.prerequisitesMet() && (renderMaskHandlerSystem.getActiveMask() == RenderMask.Mask.RT_SYMMETRY_ALIEN || renderMaskHandlerSystem.getActiveMask() == RenderMask.Mask.RT_SYMMETRY_MARINE);
+		return super.prerequisitesMet() && feedsActiveView();
 	}
 
 
@@ -91,28 +93,28 @@ public class TechpointSymmetrySystem extends DelayedEntitySystem {
 		Layer layerAliens = getAlienLayer();
 		Layer layerMarines = getMarineLayer();
 
-		final float unitsPerPixel = mapMetadataManager.getMetadata().unitsPerPixel;
+		final int from = travelTimeManager.indexOf(e);
+		if (from == -1) return;
 
-		// build a list of all paths, sorted by TRAVEL TIME. which can be different based on the team running the path.
+		// per team, all techpoints within a few seconds of the closest techpoint.
 		for (Team team : Team.values()) {
-			float closest = -1;
-			for (Path path : routable.paths.get(team)) {
-				Entity destination = path.destination.get();
-				if (mTechpoint.has(destination)) {
-
-					int travelTimeInSeconds = path.team.getTravelTimeInSeconds(path, unitsPerPixel);
-
-					if (closest == -1) closest = travelTimeInSeconds;
-
-					// abort when paths are longer than 10% of the closest techpoint.
-					if (travelTimeInSeconds > closest + MAX_SYMMETRY_DISCREPANCY)
-						break;
-
-					routePlotSystem.renderPath(path,
-							path.team == Team.ALIEN ? layerAliens : layerMarines,
-							path.team.getPathColor(),
-							new RenderMask(path.team == Team.ALIEN ? RenderMask.Mask.RT_SYMMETRY_ALIEN : RenderMask.Mask.RT_SYMMETRY_MARINE), true);
-				}
+			final int nearest = travelTimeManager.getNearestTechpoint(team, from, null);
+			if (nearest == -1)
+				continue;
+
+			final int closest = travelTimeManager.getTravelTimeInSeconds(team, from, nearest);
+			for (int to = 0, s = travelTimeManager.size(); to < s; to++) {
+				if (!travelTimeManager.isTechpoint(to))
+					continue;
+
+				final int travelTimeInSeconds = travelTimeManager.getTravelTimeInSeconds(team, from, to);
+				if (travelTimeInSeconds == -1 || travelTimeInSeconds > closest + MAX_SYMMETRY_DISCREPANCY)
+					continue;
+
+				routePlotSystem.renderPath(travelTimeManager.getPath(team, from, to),
+						team == Team.ALIEN ? layerAliens : layerMarines,
+						team.getPathColor(),
+						new RenderMask(team == Team.ALIEN ? RenderMask.Mask.RT_SYMMETRY_ALIEN : RenderMask.Mask.RT_SYMMETRY_MARINE), true);
 			}
 		}
 	}
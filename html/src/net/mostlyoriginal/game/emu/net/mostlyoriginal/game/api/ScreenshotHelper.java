@@ -40,4 +40,31 @@ public class ScreenshotHelper {
 	public Pixmap asPixmap(ImageElement imgElement) {
 		return new Pixmap(imgElement);
 	}
+
+	/**
+	 * Bulk read pixmap into RGBA8888 grid space, out[y * width + x] = getPixel(x, pixmapHeight - y).
+	 * Canvas image data is fetched once and reused by getPixel until the pixmap is drawn to.
+	 */
+	public void readPixels(Pixmap pixmap, int[] out, int width, int height) {
+		for (int y = 0; y < height; y++) {
+			final int row = pixmap.getHeight() - y;
+			for (int x = 0; x < width; x++) {
+				out[y * width + x] = row >= 0 && row < pixmap.getHeight() && x < pixmap.getWidth() ? pixmap.getPixel(x, row) : 0;
+			}
+		}
+	}
+
+	/**
+	 * Bulk write RGBA8888 grid space pixels to pixmap, the inverse of {@link #readPixels(Pixmap, int[], int, int)}.
+	 */
+	public void writePixels(Pixmap pixmap, int[] in, int width, int height) {
+		final Pixmap.Blending blending = Pixmap.getBlending();
+		Pixmap.setBlending(Pixmap.Blending.None);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				pixmap.drawPixel(x, pixmap.getHeight() - y, in[y * width + x]);
+			}
+		}
+		Pixmap.setBlending(blending);
+	}
 }
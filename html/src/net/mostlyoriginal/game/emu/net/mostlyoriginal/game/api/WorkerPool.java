@@ -0,0 +1,32 @@
+package net.mostlyoriginal.game.api;
+
+import java.util.List;
+
+/**
+ * No threads on GWT, run tasks inline.
+ *
+ * @author Daan van Yperen
+ */
+public class WorkerPool {
+
+	public static boolean isSupported() {
+		return false;
+	}
+
+	public static int getParallelism() {
+		return 1;
+	}
+
+	public static WorkerBatch submit(List<? extends Runnable> tasks) {
+		final WorkerBatch batch = new WorkerBatch(tasks.size());
+		for (Runnable task : tasks) {
+			try {
+				task.run();
+				batch.completed(null);
+			} catch (Throwable t) {
+				batch.completed(t);
+			}
+		}
+		return batch;
+	}
+}
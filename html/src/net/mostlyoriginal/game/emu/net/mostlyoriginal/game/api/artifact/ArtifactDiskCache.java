@@ -0,0 +1,22 @@
+package net.mostlyoriginal.game.api.artifact;
+
+import java.nio.ByteBuffer;
+
+/**
+ * No local file system on GWT, nothing is cached.
+ *
+ * @author Daan van Yperen
+ */
+public class ArtifactDiskCache {
+
+	public static boolean isSupported() {
+		return false;
+	}
+
+	public static ByteBuffer read(String name, long key) {
+		return null;
+	}
+
+	public static void write(String name, long key, ByteBuffer data) {
+	}
+}